@@ -0,0 +1,34 @@
+package com.TSEngine.TSEngine;
+
+import lombok.Getter;
+
+@Getter
+public class AggregateResult {
+    public static final AggregateResult EMPTY = new AggregateResult(0, 0.0, Double.NaN, Double.NaN);
+
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    public AggregateResult(long count, double sum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = count == 0 ? Double.NaN : min;
+        this.max = count == 0 ? Double.NaN : max;
+    }
+
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    @Override
+    public String toString() {
+        return "AggregateResult{" +
+                "count=" + count +
+                ", sum=" + sum +
+                ", min=" + min +
+                ", max=" + max +
+                '}';
+    }
+}
@@ -0,0 +1,36 @@
+package com.TSEngine.TSEngine;
+
+/**
+ * Aggregation primitives over decoded {@code double[]} value blocks. Ranges are half-open
+ * {@code [from, to)}; the time range is already applied by the skip list before values are decoded.
+ */
+public interface AggregationKernels {
+
+    double sum(double[] values, int from, int to);
+
+    /** Returns {@code +Infinity} for an empty range. */
+    double min(double[] values, int from, int to);
+
+    /** Returns {@code -Infinity} for an empty range. */
+    double max(double[] values, int from, int to);
+
+    /** count/sum/min/max of {@code values[from, to)} in a single pass. */
+    AggregateResult aggregate(double[] values, int from, int to);
+
+    String name();
+
+    /**
+     * Vector API kernels when {@code jdk.incubator.vector} is resolved
+     * (run with {@code --add-modules jdk.incubator.vector}), scalar loops otherwise.
+     */
+    static AggregationKernels best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return VectorAggregationKernels.create();
+            } catch (LinkageError | UnsupportedOperationException e) {
+                // fall through to scalar
+            }
+        }
+        return ScalarAggregationKernels.INSTANCE;
+    }
+}
@@ -0,0 +1,503 @@
+package com.TSEngine.TSEngine;
+
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Offline loader for large CSV / line-protocol files that skips the per-point {@code insert} path.
+ * <p>
+ * Input files are memory-mapped and parsed in parallel, newline-aligned chunks. Each worker buffers
+ * points up to its share of {@code memoryBudget} (estimated heap bytes), sorts them by series and
+ * time and spills them as a run to a scratch directory; the runs are then merged, at most 64 at a
+ * time over as many passes as needed, into a single WAL-framed segment. The segment is fsynced under a temporary name and atomically
+ * renamed to {@code bulk-<millis>.log}, so replay and {@link WalFollower} see either all of the
+ * import or none of it. A leader that is already running only sees it after
+ * {@link TimeSeriesServiceImpl#loadSegment} or a restart.
+ * <p>
+ * Formats:
+ * <ul>
+ *   <li>{@code .csv}: {@code timestamp,metric,value[,tag=value...]}, header line optional</li>
+ *   <li>anything else, line protocol: {@code metric[,tag=value...] field=value[,...] timestamp};
+ *       a field named {@code value} maps to {@code metric}, others to {@code metric.field}</li>
+ * </ul>
+ * A line is imported whole or skipped whole. Timestamps are converted to epoch milliseconds per
+ * {@link TimestampPrecision}; {@code AUTO} recognizes nanosecond line-protocol timestamps.
+ */
+public class BulkImporter {
+
+    public static final String SEGMENT_PREFIX = "bulk-";
+
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final int IO_BUFFER = 1 << 20;
+    // the merge never has more than MAX_FAN_IN runs open, sharing MERGE_BUFFER_BUDGET of read buffers
+    private static final int MAX_FAN_IN = 64;
+    private static final long MERGE_BUFFER_BUDGET = 16L << 20;
+    private static final int MIN_RUN_BUFFER = 64 << 10;
+
+    private final Path walDir;
+    private final int threads;
+    private final long runBytes;
+    private final TimestampPrecision precision;
+
+    public BulkImporter(Path walDir, int threads) {
+        this(walDir, threads, defaultMemoryBudget(), TimestampPrecision.AUTO);
+    }
+
+    /**
+     * @param memoryBudget estimated heap bytes of buffered points, shared by all {@code threads}
+     */
+    public BulkImporter(Path walDir, int threads, long memoryBudget, TimestampPrecision precision) {
+        if (threads <= 0) throw new IllegalArgumentException("threads must be > 0");
+        if (memoryBudget <= 0) throw new IllegalArgumentException("memoryBudget must be > 0");
+        this.walDir = walDir;
+        this.threads = threads;
+        this.runBytes = Math.max(1, memoryBudget / threads);
+        this.precision = precision;
+    }
+
+    /** A quarter of the max heap: runs, sort scratch and the merge buffers must all fit. */
+    public static long defaultMemoryBudget() {
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    public Result importFiles(List<Path> files) throws IOException, InterruptedException {
+        Files.createDirectories(walDir);
+        Path scratch = Files.createTempDirectory(walDir, ".bulk-runs-");
+        long start = System.nanoTime();
+
+        try {
+            AtomicLong parsed = new AtomicLong();
+            AtomicLong skipped = new AtomicLong();
+            List<Path> runs = parse(files, scratch, parsed, skipped);
+            long parseNanos = System.nanoTime() - start;
+
+            Path segment = merge(runs, scratch);
+            long totalNanos = System.nanoTime() - start;
+
+            return new Result(segment, parsed.get(), skipped.get(), runs.size(), parseNanos, totalNanos);
+        } finally {
+            deleteRecursively(scratch);
+        }
+    }
+
+    // ---- parse phase ----
+
+    private List<Path> parse(List<Path> files, Path scratch, AtomicLong parsed, AtomicLong skipped)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger runIds = new AtomicInteger();
+        List<Future<List<Path>>> futures = new ArrayList<>();
+
+        try {
+            for (Path file : files) {
+                boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+                long[] bounds = chunkBounds(file);
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long from = bounds[i];
+                    long to = bounds[i + 1];
+                    if (from == to) continue;
+                    futures.add(executor.submit(() -> {
+                        try (RunSink sink = new RunSink(scratch, runIds)) {
+                            parseChunk(file, from, to, csv, sink, skipped);
+                            parsed.addAndGet(sink.total);
+                            return sink.runs;
+                        }
+                    }));
+                }
+            }
+
+            List<Path> runs = new ArrayList<>();
+            for (Future<List<Path>> f : futures) {
+                try {
+                    runs.addAll(f.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) throw (IOException) cause;
+                    throw new IOException("bulk parse failed", cause);
+                }
+            }
+            return runs;
+        } finally {
+            // workers must be gone before the caller deletes the scratch directory under them
+            executor.shutdownNow();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.err.println("Waiting for bulk parse workers to stop...");
+            }
+        }
+    }
+
+    /** Splits a file into roughly equal ranges, each ending just after a newline. */
+    private long[] chunkBounds(Path file) throws IOException {
+        try (FileChannel fc = FileChannel.open(file, READ)) {
+            long size = fc.size();
+            int chunks = (int) Math.max(threads, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+            long[] bounds = new long[chunks + 1];
+            bounds[chunks] = size;
+
+            ByteBuffer probe = ByteBuffer.allocate(4096);
+            for (int i = 1; i < chunks; i++) {
+                long pos = Math.max(bounds[i - 1], size * i / chunks);
+                bounds[i] = size;
+                scan:
+                while (pos < size) {
+                    probe.clear();
+                    int n = fc.read(probe, pos);
+                    if (n <= 0) break;
+                    for (int j = 0; j < n; j++) {
+                        if (probe.get(j) == '\n') {
+                            bounds[i] = pos + j + 1;
+                            break scan;
+                        }
+                    }
+                    pos += n;
+                }
+            }
+            return bounds;
+        }
+    }
+
+    private void parseChunk(Path file, long from, long to, boolean csv, RunSink sink, AtomicLong skipped)
+            throws IOException {
+        try (FileChannel fc = FileChannel.open(file, READ)) {
+            MappedByteBuffer buf = fc.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            byte[] line = new byte[256];
+            boolean first = from == 0;
+
+            while (buf.hasRemaining()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("bulk parse cancelled");
+                }
+                int len = 0;
+                while (buf.hasRemaining()) {
+                    byte b = buf.get();
+                    if (b == '\n') break;
+                    if (len == line.length) line = Arrays.copyOf(line, len << 1);
+                    line[len++] = b;
+                }
+                if (len > 0 && line[len - 1] == '\r') len--;
+                if (len == 0 || line[0] == '#') continue;
+
+                String s = new String(line, 0, len, StandardCharsets.UTF_8);
+                try {
+                    if (csv) {
+                        sink.add(parseCsv(s, precision));
+                    } else {
+                        for (WalRecord rec : parseLineProtocol(s, precision)) {
+                            sink.add(rec);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // a CSV header is the only bad line we expect to see silently
+                    if (!(csv && first)) skipped.incrementAndGet();
+                }
+                first = false;
+            }
+        }
+    }
+
+    static WalRecord parseCsv(String line, TimestampPrecision precision) {
+        String[] f = line.split(",");
+        if (f.length < 3) throw new IllegalArgumentException("expected timestamp,metric,value: " + line);
+
+        Map<String, String> tags = new HashMap<>();
+        for (int i = 3; i < f.length; i++) {
+            int eq = f[i].indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("bad tag: " + f[i]);
+            tags.put(f[i].substring(0, eq).trim(), f[i].substring(eq + 1).trim());
+        }
+        long ts = precision.toMillis(Long.parseLong(f[0].trim()));
+        return new WalRecord(ts, f[1].trim(), Double.parseDouble(f[2].trim()), tags);
+    }
+
+    /** All points of one line, or an exception if any part of it is malformed. */
+    static List<WalRecord> parseLineProtocol(String line, TimestampPrecision precision) {
+        String[] parts = line.trim().split(" +");
+        if (parts.length != 3) throw new IllegalArgumentException("expected series fields timestamp: " + line);
+
+        String[] series = parts[0].split(",");
+        String measurement = series[0];
+        Map<String, String> tags = new HashMap<>();
+        for (int i = 1; i < series.length; i++) {
+            int eq = series[i].indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("bad tag: " + series[i]);
+            tags.put(series[i].substring(0, eq), series[i].substring(eq + 1));
+        }
+
+        long ts = precision.toMillis(Long.parseLong(parts[2]));
+        List<WalRecord> records = new ArrayList<>();
+        for (String field : parts[1].split(",")) {
+            int eq = field.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("bad field: " + field);
+            String name = field.substring(0, eq);
+            String raw = field.substring(eq + 1);
+            if (raw.endsWith("i")) raw = raw.substring(0, raw.length() - 1);
+
+            String metric = name.equals("value") ? measurement : measurement + "." + name;
+            records.add(new WalRecord(ts, metric, Double.parseDouble(raw), tags));
+        }
+        return records;
+    }
+
+    /** Buffers up to {@code runBytes} of points, then sorts and spills them as one run file. */
+    private final class RunSink implements Closeable {
+        private final Path scratch;
+        private final AtomicInteger runIds;
+        private final List<Path> runs = new ArrayList<>();
+        private final List<Keyed> buffer = new ArrayList<>();
+        private long bufferedBytes;
+        private long total;
+
+        RunSink(Path scratch, AtomicInteger runIds) {
+            this.scratch = scratch;
+            this.runIds = runIds;
+        }
+
+        void add(WalRecord rec) throws IOException {
+            Keyed k = new Keyed(rec);
+            buffer.add(k);
+            bufferedBytes += k.estimatedBytes();
+            total++;
+            if (bufferedBytes >= runBytes) spill();
+        }
+
+        private void spill() throws IOException {
+            if (buffer.isEmpty()) return;
+            buffer.sort(null);
+
+            Path run = scratch.resolve(String.format("run-%06d", runIds.incrementAndGet()));
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(run, CREATE_NEW, WRITE), IO_BUFFER))) {
+                for (Keyed k : buffer) {
+                    writeFrame(out, WalCodec.serialize(k.rec));
+                }
+            }
+            runs.add(run);
+            buffer.clear();
+            bufferedBytes = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            spill();
+        }
+    }
+
+    /** Sort key: metric, then the series' tag set, then time. */
+    private static final class Keyed implements Comparable<Keyed> {
+        final WalRecord rec;
+        final String series;
+
+        Keyed(WalRecord rec) {
+            this.rec = rec;
+            this.series = seriesKey(rec.tags);
+        }
+
+        // rough heap footprint: Keyed + WalRecord + strings + a small HashMap, plus the list slot
+        long estimatedBytes() {
+            long bytes = 200 + rec.metric.length() + series.length();
+            for (Map.Entry<String, String> e : rec.tags.entrySet()) {
+                bytes += 112 + e.getKey().length() + e.getValue().length();
+            }
+            return bytes;
+        }
+
+        @Override
+        public int compareTo(Keyed o) {
+            int c = rec.metric.compareTo(o.rec.metric);
+            if (c != 0) return c;
+            c = series.compareTo(o.series);
+            if (c != 0) return c;
+            return Long.compare(rec.timestamp, o.rec.timestamp);
+        }
+    }
+
+    private static String seriesKey(Map<String, String> tags) {
+        if (tags.isEmpty()) return "";
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : new TreeMap<>(tags).entrySet()) {
+            sb.append(e.getKey()).append('=').append(e.getValue()).append(',');
+        }
+        return sb.toString();
+    }
+
+    // ---- merge phase ----
+
+    private Path merge(List<Path> runs, Path scratch) throws IOException {
+        // multi-pass so the number of open runs (and their read buffers) stays bounded
+        List<Path> level = runs;
+        for (int pass = 0; level.size() > MAX_FAN_IN; pass++) {
+            List<Path> next = new ArrayList<>();
+            for (int i = 0; i < level.size(); i += MAX_FAN_IN) {
+                List<Path> group = level.subList(i, Math.min(level.size(), i + MAX_FAN_IN));
+                Path merged = scratch.resolve(String.format("merge-%02d-%06d", pass, next.size()));
+                mergeRuns(group, merged, false);
+                for (Path run : group) Files.delete(run);
+                next.add(merged);
+            }
+            level = next;
+        }
+
+        Path tmp = scratch.resolve("segment.tmp");
+        mergeRuns(level, tmp, true);
+
+        long stamp = System.currentTimeMillis();
+        Path segment = walDir.resolve(String.format("%s%013d.log", SEGMENT_PREFIX, stamp));
+        while (Files.exists(segment)) {
+            segment = walDir.resolve(String.format("%s%013d.log", SEGMENT_PREFIX, ++stamp));
+        }
+        Files.move(tmp, segment, StandardCopyOption.ATOMIC_MOVE);
+        return segment;
+    }
+
+    private static void mergeRuns(List<Path> runs, Path target, boolean fsync) throws IOException {
+        int readBuffer = (int) Math.max(MIN_RUN_BUFFER, MERGE_BUFFER_BUDGET / Math.max(1, runs.size()));
+        PriorityQueue<RunCursor> heap = new PriorityQueue<>();
+
+        try (FileChannel ch = FileChannel.open(target, CREATE_NEW, WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), IO_BUFFER));
+            try {
+                for (Path run : runs) {
+                    RunCursor c = new RunCursor(run, readBuffer);
+                    if (c.advance()) heap.add(c); else c.close();
+                }
+                while (!heap.isEmpty()) {
+                    RunCursor c = heap.poll();
+                    writeFrame(out, c.payload);
+                    if (c.advance()) heap.add(c); else c.close();
+                }
+            } finally {
+                for (RunCursor c : heap) c.close();
+            }
+            out.flush();
+            if (fsync) ch.force(true);
+        }
+    }
+
+    private static void writeFrame(DataOutputStream out, byte[] payload) throws IOException {
+        out.writeInt(payload.length);
+        out.writeInt(WalCodec.crc32(payload));
+        out.write(payload);
+    }
+
+    private static final class RunCursor implements Comparable<RunCursor>, Closeable {
+        private final DataInputStream in;
+        byte[] payload;
+        Keyed key;
+
+        RunCursor(Path run, int bufferSize) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), bufferSize));
+        }
+
+        boolean advance() throws IOException {
+            int len;
+            try {
+                len = in.readInt();
+            } catch (EOFException eof) {
+                return false;
+            }
+            in.readInt(); // crc, runs are our own scratch files
+            payload = in.readNBytes(len);
+            key = new Keyed(WalCodec.deserialize(new DataInputStream(new ByteArrayInputStream(payload))));
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunCursor o) {
+            return key.compareTo(o.key);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) s.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Getter
+    public static final class Result {
+        private final Path segment;
+        private final long points;
+        private final long skippedLines;
+        private final int runs;
+        private final long parseNanos;
+        private final long totalNanos;
+
+        Result(Path segment, long points, long skippedLines, int runs, long parseNanos, long totalNanos) {
+            this.segment = segment;
+            this.points = points;
+            this.skippedLines = skippedLines;
+            this.runs = runs;
+            this.parseNanos = parseNanos;
+            this.totalNanos = totalNanos;
+        }
+
+        public double getPointsPerSecond() {
+            return totalNanos == 0 ? 0 : points / (totalNanos / 1e9);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: BulkImporter <walDir> <file>... [--threads N] [--memory-mb N] [--precision auto|ns|us|ms|s]");
+            return;
+        }
+
+        Path walDir = Path.of(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long memoryBudget = defaultMemoryBudget();
+        TimestampPrecision precision = TimestampPrecision.AUTO;
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--memory-mb": memoryBudget = Long.parseLong(args[++i]) << 20; break;
+                case "--precision": precision = TimestampPrecision.parse(args[++i]); break;
+                default: files.add(Path.of(args[i]));
+            }
+        }
+
+        Result r = new BulkImporter(walDir, threads, memoryBudget, precision).importFiles(files);
+
+        System.out.println("=== Bulk Import: " + r.getSegment() + " ===");
+        System.out.println(String.format("  Points:   %,d (%,d lines skipped)", r.getPoints(), r.getSkippedLines()));
+        System.out.println(String.format("  Runs:     %,d (%,d MB buffer budget)", r.getRuns(), memoryBudget >> 20));
+        System.out.println(String.format("  Parse:    %.2f s (%.0f points/sec)",
+                r.getParseNanos() / 1e9, r.getPoints() / (r.getParseNanos() / 1e9)));
+        System.out.println(String.format("  Total:    %.2f s (%.0f points/sec)",
+                r.getTotalNanos() / 1e9, r.getPointsPerSecond()));
+        System.out.println("  Followers and the next restart load it; an engine that is already running");
+        System.out.println("  must call TimeSeriesServiceImpl.loadSegment(" + r.getSegment().getFileName() + ").");
+    }
+}
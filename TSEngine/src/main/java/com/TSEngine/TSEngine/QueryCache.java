@@ -0,0 +1,304 @@
+package com.TSEngine.TSEngine;
+
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches {@code query} results per aligned time bucket. A query is split into a head partial
+ * bucket, a run of full buckets and a tail; only full buckets that have already closed
+ * (bucket end <= clock) are cached, so a sliding dashboard window only rescans its edges.
+ * Each run of uncached buckets is scanned once and split; empty buckets are not cached, and a
+ * query spanning more than {@link #MAX_BUCKETS_PER_QUERY} buckets bypasses the cache.
+ * <p>
+ * {@link #invalidate} must be called for every in-memory insert so late / out-of-order
+ * points drop the cached bucket they fall into.
+ */
+public final class QueryCache {
+
+    @FunctionalInterface
+    public interface RangeScanner {
+        List<DataPoint> scan(String metric, long timeStart, long timeEnd, Map<String, String> filters);
+    }
+
+    private static final int GENERATION_STRIPES = 4096;
+    public static final int MAX_BUCKETS_PER_QUERY = 1 << 14;
+
+    private final long bucketMillis;
+    private final long maxWeight;
+    private final LongSupplier clock;
+
+    // guarded by this
+    private final LinkedHashMap<Key, List<DataPoint>> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+
+    // metric -> bucketStart -> cached keys, lets insert skip the lock when nothing is cached there
+    private final Map<String, Map<Long, Set<Key>>> index = new ConcurrentHashMap<>();
+    // bumped on every invalidation so a scan racing with an insert never gets cached
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public QueryCache(long bucketMillis, long maxWeight) {
+        this(bucketMillis, maxWeight, System::currentTimeMillis);
+    }
+
+    /**
+     * @param bucketMillis bucket width results are aligned to
+     * @param maxWeight    upper bound on the number of cached data points
+     * @param clock        buckets ending after {@code clock} are never cached
+     */
+    public QueryCache(long bucketMillis, long maxWeight, LongSupplier clock) {
+        if (bucketMillis <= 0) throw new IllegalArgumentException("bucketMillis must be > 0");
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be > 0");
+        this.bucketMillis = bucketMillis;
+        this.maxWeight = maxWeight;
+        this.clock = clock;
+    }
+
+    public List<DataPoint> query(String metric, long timeStart, long timeEnd, Map<String, String> filters,
+                                 RangeScanner scanner) {
+        long firstFull = Math.floorDiv(timeStart, bucketMillis) * bucketMillis;
+        if (firstFull < timeStart) firstFull += bucketMillis;
+        long lastFullEnd = Math.floorDiv(Math.min(timeEnd, clock.getAsLong()), bucketMillis) * bucketMillis;
+
+        long span = lastFullEnd - firstFull;
+        // span <= 0 also catches overflow on extreme bounds
+        if (span <= 0 || span / bucketMillis > MAX_BUCKETS_PER_QUERY) {
+            return scanner.scan(metric, timeStart, timeEnd, filters);
+        }
+
+        Map<String, String> normalized = normalize(filters);
+        if (normalized == null) {
+            return scanner.scan(metric, timeStart, timeEnd, filters);
+        }
+        List<DataPoint> results = new ArrayList<>();
+
+        if (timeStart < firstFull) {
+            results.addAll(scanner.scan(metric, timeStart, firstFull, filters));
+        }
+        // start of the current run of uncached buckets, if any
+        boolean missing = false;
+        long missStart = 0;
+        for (long bucket = firstFull; bucket < lastFullEnd; bucket += bucketMillis) {
+            List<DataPoint> cached = lookup(new Key(metric, normalized, bucket));
+            if (cached == null) {
+                if (!missing) missStart = bucket;
+                missing = true;
+                continue;
+            }
+            if (missing) {
+                fill(metric, normalized, filters, missStart, bucket, scanner, results);
+                missing = false;
+            }
+            results.addAll(cached);
+        }
+        if (missing) {
+            fill(metric, normalized, filters, missStart, lastFullEnd, scanner, results);
+        }
+        if (lastFullEnd < timeEnd) {
+            results.addAll(scanner.scan(metric, lastFullEnd, timeEnd, filters));
+        }
+
+        return results;
+    }
+
+    /** Copy usable as a key, or {@code null} if a null key / value means the query can't be cached. */
+    private static Map<String, String> normalize(Map<String, String> filters) {
+        if (filters == null || filters.isEmpty()) return Map.of();
+        for (Map.Entry<String, String> f : filters.entrySet()) {
+            if (f.getKey() == null || f.getValue() == null) return null;
+        }
+        return Map.copyOf(filters);
+    }
+
+    private synchronized List<DataPoint> lookup(Key key) {
+        List<DataPoint> cached = entries.get(key);
+        if (cached != null) hits.increment();
+        return cached;
+    }
+
+    /** Scans the uncached buckets {@code [from, to)} once and caches the non-empty ones. */
+    private void fill(String metric, Map<String, String> normalized, Map<String, String> filters,
+                      long from, long to, RangeScanner scanner, List<DataPoint> results) {
+        int buckets = (int) ((to - from) / bucketMillis);
+        misses.add(buckets);
+
+        // generations are read before the scan, see put()
+        long[] seen = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            seen[i] = generations.get(stripe(metric, from + i * bucketMillis));
+        }
+        List<DataPoint> scanned = scanner.scan(metric, from, to, filters);
+        results.addAll(scanned);
+
+        int start = 0;
+        while (start < scanned.size()) {
+            int i = (int) ((scanned.get(start).getTimestamp() - from) / bucketMillis);
+            long bucketEnd = from + (i + 1) * bucketMillis;
+            int end = start + 1;
+            while (end < scanned.size() && scanned.get(end).getTimestamp() < bucketEnd) end++;
+
+            if (end - start + 1L <= maxWeight) {
+                long bucketStart = bucketEnd - bucketMillis;
+                put(new Key(metric, normalized, bucketStart), List.copyOf(scanned.subList(start, end)),
+                        stripe(metric, bucketStart), seen[i]);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Publishes {@code value} only if no insert touched its bucket since the scan started. The key
+     * is indexed before the generation is re-read: an insert either bumped the generation first
+     * (and the entry is never published) or will find the key in the index afterwards and wait on
+     * this lock to remove it.
+     */
+    private synchronized void put(Key key, List<DataPoint> value, int stripe, long generation) {
+        index.computeIfAbsent(key.metric, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key.bucketStart, b -> ConcurrentHashMap.newKeySet())
+                .add(key);
+
+        if (generations.get(stripe) != generation) {
+            // a concurrently published entry for the same key is just as suspect
+            remove(key);
+            unindex(key);
+            return;
+        }
+
+        List<DataPoint> previous = entries.put(key, value);
+        if (previous != null) weight -= previous.size() + 1L;
+        weight += value.size() + 1L;
+
+        Iterator<Map.Entry<Key, List<DataPoint>>> it = entries.entrySet().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            Map.Entry<Key, List<DataPoint>> eldest = it.next();
+            it.remove();
+            weight -= eldest.getValue().size() + 1L;
+            unindex(eldest.getKey());
+            evictions.increment();
+        }
+    }
+
+    /** Drops every cached result for {@code metric} whose bucket contains {@code timestamp}. */
+    public void invalidate(String metric, long timestamp) {
+        long bucketStart = Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+        generations.incrementAndGet(stripe(metric, bucketStart));
+
+        Map<Long, Set<Key>> buckets = index.get(metric);
+        if (buckets == null) return;
+        Set<Key> keys = buckets.get(bucketStart);
+        if (keys == null || keys.isEmpty()) return;
+
+        synchronized (this) {
+            for (Key key : keys.toArray(new Key[0])) {
+                if (remove(key)) invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        index.clear();
+        weight = 0;
+    }
+
+    // caller holds the lock
+    private boolean remove(Key key) {
+        List<DataPoint> removed = entries.remove(key);
+        if (removed == null) return false;
+        weight -= removed.size() + 1L;
+        unindex(key);
+        return true;
+    }
+
+    private void unindex(Key key) {
+        Map<Long, Set<Key>> buckets = index.get(key.metric);
+        if (buckets == null) return;
+        Set<Key> keys = buckets.get(key.bucketStart);
+        if (keys == null) return;
+        keys.remove(key);
+        if (keys.isEmpty()) buckets.remove(key.bucketStart);
+    }
+
+    private static int stripe(String metric, long bucketStart) {
+        int h = metric.hashCode() * 31 + Long.hashCode(bucketStart);
+        h ^= (h >>> 16);
+        return h & (GENERATION_STRIPES - 1);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), entries.size(), weight);
+    }
+
+    @Getter
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long invalidationCount;
+        private final int entryCount;
+        private final long weight;
+
+        Stats(long hitCount, long missCount, long evictionCount, long invalidationCount, int entryCount, long weight) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.invalidationCount = invalidationCount;
+            this.entryCount = entryCount;
+            this.weight = weight;
+        }
+
+        public double getHitRate() {
+            long total = hitCount + missCount;
+            return total == 0 ? 0.0 : (double) hitCount / total;
+        }
+
+        @Override
+        public String toString() {
+            return "QueryCache.Stats{" +
+                    "hits=" + hitCount +
+                    ", misses=" + missCount +
+                    ", hitRate=" + String.format("%.3f", getHitRate()) +
+                    ", evictions=" + evictionCount +
+                    ", invalidations=" + invalidationCount +
+                    ", entries=" + entryCount +
+                    ", weight=" + weight +
+                    '}';
+        }
+    }
+
+    private static final class Key {
+        final String metric;
+        final Map<String, String> filters;
+        final long bucketStart;
+        private final int hash;
+
+        Key(String metric, Map<String, String> filters, long bucketStart) {
+            this.metric = metric;
+            this.filters = filters;
+            this.bucketStart = bucketStart;
+            this.hash = Objects.hash(metric, filters, bucketStart);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return bucketStart == k.bucketStart && metric.equals(k.metric) && filters.equals(k.filters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
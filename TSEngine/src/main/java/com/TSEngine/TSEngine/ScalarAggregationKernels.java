@@ -0,0 +1,55 @@
+package com.TSEngine.TSEngine;
+
+public final class ScalarAggregationKernels implements AggregationKernels {
+    public static final ScalarAggregationKernels INSTANCE = new ScalarAggregationKernels();
+
+    private ScalarAggregationKernels() {}
+
+    @Override
+    public double sum(double[] values, int from, int to) {
+        double s = 0.0;
+        for (int i = from; i < to; i++) {
+            s += values[i];
+        }
+        return s;
+    }
+
+    @Override
+    public double min(double[] values, int from, int to) {
+        double m = Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            m = Math.min(m, values[i]);
+        }
+        return m;
+    }
+
+    @Override
+    public double max(double[] values, int from, int to) {
+        double m = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            m = Math.max(m, values[i]);
+        }
+        return m;
+    }
+
+    @Override
+    public AggregateResult aggregate(double[] values, int from, int to) {
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int i = from; i < to; i++) {
+            double v = values[i];
+            sum += v;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+
+        return new AggregateResult(Math.max(0, to - from), sum, min, max);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,7 @@
+package com.TSEngine.TSEngine;
+
+public enum SlowConsumerPolicy {
+    DROP_NEWEST,
+    DROP_OLDEST,
+    DISCONNECT
+}
@@ -0,0 +1,186 @@
+package com.TSEngine.TSEngine;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Handle for a {@link TimeSeriesService#subscribe} registration. Matching points are queued by the
+ * inserting thread without blocking and handed to the listener by a delivery thread; windowed
+ * aggregates are folded on the delivery thread too, so {@code insert} only pays for the offer.
+ */
+public final class Subscription implements AutoCloseable {
+    private static final int MAX_OPEN_WINDOWS = 16;
+
+    final String metric;
+    final String[] filterKeys;
+    final String[] filterValues;
+
+    private final SubscriptionConfig config;
+    private final SubscriptionListener listener;
+    private final SubscriptionManager manager;
+    private final Executor executor;
+
+    private final ArrayBlockingQueue<DataPoint> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean active = true;
+    private volatile boolean disconnected;
+
+    // delivery thread only: windowStart -> running aggregate
+    private final TreeMap<Long, double[]> windows = new TreeMap<>();
+
+    Subscription(String metric, Map<String, String> filters, SubscriptionConfig config,
+                 SubscriptionListener listener, SubscriptionManager manager, Executor executor) {
+        this.metric = metric;
+        Map<String, String> sorted = (filters == null) ? Map.of() : new TreeMap<>(filters);
+        this.filterKeys = sorted.keySet().toArray(new String[0]);
+        this.filterValues = sorted.values().toArray(new String[0]);
+        this.config = config;
+        this.listener = listener;
+        this.manager = manager;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(config.queueCapacity);
+    }
+
+    boolean matches(Map<String, String> tags) {
+        for (int i = 0; i < filterKeys.length; i++) {
+            if (!filterValues[i].equals(tags.get(filterKeys[i]))) return false;
+        }
+        return true;
+    }
+
+    /** Called on the inserting thread; never blocks. */
+    void offer(DataPoint dp) {
+        if (!active) return;
+
+        if (!queue.offer(dp)) {
+            switch (config.slowConsumerPolicy) {
+                case DROP_NEWEST:
+                    dropped.increment();
+                    return;
+                case DROP_OLDEST:
+                    while (!queue.offer(dp)) {
+                        if (queue.poll() != null) dropped.increment();
+                    }
+                    break;
+                case DISCONNECT:
+                    // unregistering takes the manager lock, so leave it to the delivery thread
+                    dropped.increment();
+                    active = false;
+                    disconnected = true;
+                    break;
+            }
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            DataPoint dp;
+            // checked per point so nothing new reaches the listener once cancel() has returned
+            while (active && (dp = queue.poll()) != null) {
+                deliver(dp);
+            }
+            if (!active) {
+                queue.clear();
+            } else if (config.windowMillis > 0) {
+                flushWindows();
+            }
+            if (disconnected) {
+                disconnected = false;
+                manager.remove(this);
+                listener.onDisconnected();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Subscription listener failed: " + e);
+        } finally {
+            scheduled.set(false);
+            if ((active && !queue.isEmpty()) || disconnected) schedule();
+        }
+    }
+
+    private void deliver(DataPoint dp) {
+        if (config.windowMillis == 0) {
+            delivered.increment();
+            listener.onPoint(dp);
+            return;
+        }
+
+        long windowStart = Math.floorDiv(dp.getTimestamp(), config.windowMillis) * config.windowMillis;
+        double[] acc = windows.get(windowStart);
+        if (acc == null) {
+            if (windows.size() == MAX_OPEN_WINDOWS) {
+                // late point for a window we already forgot about
+                if (windowStart < windows.firstKey()) {
+                    dropped.increment();
+                    return;
+                }
+                // emit before forgetting it, flushWindows() only runs at the end of the batch
+                Map.Entry<Long, double[]> evicted = windows.pollFirstEntry();
+                emit(evicted.getKey(), evicted.getValue());
+            }
+            acc = new double[]{0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0};
+            windows.put(windowStart, acc);
+        }
+        // count, sum, min, max, dirty
+        acc[0]++;
+        acc[1] += dp.getValue();
+        acc[2] = Math.min(acc[2], dp.getValue());
+        acc[3] = Math.max(acc[3], dp.getValue());
+        acc[4] = 1;
+        delivered.increment();
+    }
+
+    // one update per touched window per drained batch
+    private void flushWindows() {
+        for (Map.Entry<Long, double[]> e : windows.entrySet()) {
+            emit(e.getKey(), e.getValue());
+        }
+    }
+
+    private void emit(long windowStart, double[] acc) {
+        if (acc[4] == 0) return;
+        acc[4] = 0;
+        listener.onAggregate(windowStart, windowStart + config.windowMillis,
+                new AggregateResult((long) acc[0], acc[1], acc[2], acc[3]));
+    }
+
+    /** Stops delivery; a listener callback already running may still finish. */
+    public void cancel() {
+        if (!active) return;
+        active = false;
+        manager.remove(this);
+    }
+
+    @Override
+    public void close() {
+        cancel();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,24 @@
+package com.TSEngine.TSEngine;
+
+public final class SubscriptionConfig {
+    /** 0 delivers raw points, otherwise tumbling-window aggregates of this width. */
+    public final long windowMillis;
+    public final int queueCapacity;
+    public final SlowConsumerPolicy slowConsumerPolicy;
+
+    public SubscriptionConfig(long windowMillis, int queueCapacity, SlowConsumerPolicy slowConsumerPolicy) {
+        if (windowMillis < 0) throw new IllegalArgumentException("windowMillis must be >= 0");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("queueCapacity must be > 0");
+        this.windowMillis = windowMillis;
+        this.queueCapacity = queueCapacity;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    public static SubscriptionConfig rawPoints() {
+        return new SubscriptionConfig(0, 10_000, SlowConsumerPolicy.DROP_OLDEST);
+    }
+
+    public static SubscriptionConfig windowed(long windowMillis) {
+        return new SubscriptionConfig(windowMillis, 10_000, SlowConsumerPolicy.DROP_OLDEST);
+    }
+}
@@ -0,0 +1,17 @@
+package com.TSEngine.TSEngine;
+
+/**
+ * Callbacks run on a shared delivery thread, never on the inserting thread, and are serialized
+ * per subscription.
+ */
+public interface SubscriptionListener {
+
+    /** A newly inserted matching point (raw subscriptions). */
+    default void onPoint(DataPoint dp) {}
+
+    /** The updated aggregate of {@code [windowStart, windowEnd)} (windowed subscriptions). */
+    default void onAggregate(long windowStart, long windowEnd, AggregateResult aggregate) {}
+
+    /** The subscription was dropped under {@link SlowConsumerPolicy#DISCONNECT}. */
+    default void onDisconnected() {}
+}
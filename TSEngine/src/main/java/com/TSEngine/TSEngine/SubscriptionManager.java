@@ -0,0 +1,149 @@
+package com.TSEngine.TSEngine;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes inserted points to subscriptions. Per metric, subscriptions are compiled into an
+ * immutable {@link Matchers} snapshot indexed by their first filter pair, so {@link #publish}
+ * costs one map lookup when nobody listens to the metric and a few tag lookups otherwise.
+ * Snapshots are rebuilt on subscribe / cancel, off the insert path.
+ */
+public final class SubscriptionManager {
+
+    private final Map<String, Matchers> index = new ConcurrentHashMap<>();
+    // guarded by this
+    private final Map<String, List<Subscription>> registry = new HashMap<>();
+    private final int deliveryThreads;
+    private volatile ExecutorService executor;
+
+    public SubscriptionManager() {
+        this(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    }
+
+    public SubscriptionManager(int deliveryThreads) {
+        this.deliveryThreads = deliveryThreads;
+    }
+
+    public synchronized Subscription subscribe(String metric, Map<String, String> filters,
+                                               SubscriptionConfig config, SubscriptionListener listener) {
+        Objects.requireNonNull(metric, "metric");
+        Objects.requireNonNull(listener, "listener");
+        if (filters != null) {
+            for (Map.Entry<String, String> f : filters.entrySet()) {
+                if (f.getKey() == null || f.getValue() == null) {
+                    throw new IllegalArgumentException("filter keys and values must not be null: " + filters);
+                }
+            }
+        }
+
+        Subscription sub = new Subscription(metric, filters, config, listener, this, executor());
+        registry.computeIfAbsent(metric, m -> new ArrayList<>()).add(sub);
+        rebuild(metric);
+        return sub;
+    }
+
+    synchronized void remove(Subscription sub) {
+        List<Subscription> subs = registry.get(sub.metric);
+        if (subs == null || !subs.remove(sub)) return;
+        if (subs.isEmpty()) registry.remove(sub.metric);
+        rebuild(sub.metric);
+    }
+
+    /** Called once per inserted point, on the inserting thread. Never throws. */
+    public void publish(DataPoint dp) {
+        Matchers m = index.get(dp.getMetric());
+        if (m == null) return;
+
+        try {
+            dispatch(m, dp);
+        } catch (RuntimeException e) {
+            // the point is already stored, so a subscription problem must not fail the insert
+            System.err.println("Subscription dispatch failed: " + e);
+        }
+    }
+
+    private static void dispatch(Matchers m, DataPoint dp) {
+        for (Subscription sub : m.unfiltered) {
+            sub.offer(dp);
+        }
+
+        Map<String, String> tags = dp.getTags();
+        if (tags.isEmpty()) return;
+        for (int i = 0; i < m.anchorKeys.length; i++) {
+            String v = tags.get(m.anchorKeys[i]);
+            if (v == null) continue;
+            Subscription[] candidates = m.byAnchorValue[i].get(v);
+            if (candidates == null) continue;
+            for (Subscription sub : candidates) {
+                if (sub.matches(tags)) sub.offer(dp);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        int n = 0;
+        for (List<Subscription> subs : registry.values()) n += subs.size();
+        return n;
+    }
+
+    public void shutdown() {
+        ExecutorService e = executor;
+        if (e != null) e.shutdown();
+    }
+
+    private void rebuild(String metric) {
+        List<Subscription> subs = registry.get(metric);
+        if (subs == null) {
+            index.remove(metric);
+        } else {
+            index.put(metric, new Matchers(subs));
+        }
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger ids = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(deliveryThreads, r -> {
+                Thread t = new Thread(r, "subscription-delivery-" + ids.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    /** Immutable per-metric dispatch table; a subscription is anchored on its first sorted filter. */
+    private static final class Matchers {
+        final Subscription[] unfiltered;
+        final String[] anchorKeys;
+        final Map<String, Subscription[]>[] byAnchorValue;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Matchers(List<Subscription> subs) {
+            List<Subscription> none = new ArrayList<>();
+            Map<String, Map<String, List<Subscription>>> anchored = new HashMap<>();
+            for (Subscription sub : subs) {
+                if (sub.filterKeys.length == 0) {
+                    none.add(sub);
+                } else {
+                    anchored.computeIfAbsent(sub.filterKeys[0], k -> new HashMap<>())
+                            .computeIfAbsent(sub.filterValues[0], v -> new ArrayList<>())
+                            .add(sub);
+                }
+            }
+
+            this.unfiltered = none.toArray(new Subscription[0]);
+            this.anchorKeys = anchored.keySet().toArray(new String[0]);
+            this.byAnchorValue = new Map[anchorKeys.length];
+            for (int i = 0; i < anchorKeys.length; i++) {
+                Map<String, Subscription[]> byValue = new HashMap<>();
+                anchored.get(anchorKeys[i]).forEach((v, l) -> byValue.put(v, l.toArray(new Subscription[0])));
+                byAnchorValue[i] = byValue;
+            }
+        }
+    }
+}
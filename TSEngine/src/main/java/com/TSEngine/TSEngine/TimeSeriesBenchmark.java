@@ -121,12 +121,216 @@ public class TimeSeriesBenchmark {
         }
     }
 
-    public void runAllBenchmarks() throws InterruptedException {
+    public void benchmarkAggregation() {
+        System.out.println("\n--- Aggregation Kernels ---");
+
+        AggregationKernels scalar = ScalarAggregationKernels.INSTANCE;
+        AggregationKernels best = AggregationKernels.best();
+        System.out.println("Active kernels: " + best.name());
+
+        for (int volume : new int[]{1_000_000, 4_000_000}) {
+            double[] values = new double[volume];
+            for (int i = 0; i < volume; i++) {
+                values[i] = randomValue();
+            }
+
+            System.out.println(String.format("%,d decoded values:", volume));
+            double scalarSum = timeKernel(() -> scalar.sum(values, 0, volume));
+            double bestSum = timeKernel(() -> best.sum(values, 0, volume));
+            printKernel("sum", scalarSum, bestSum);
+
+            double scalarMax = timeKernel(() -> scalar.max(values, 0, volume));
+            double bestMax = timeKernel(() -> best.max(values, 0, volume));
+            printKernel("max", scalarMax, bestMax);
+
+            double scalarAgg = timeKernel(() -> scalar.aggregate(values, 0, volume));
+            double bestAgg = timeKernel(() -> best.aggregate(values, 0, volume));
+            printKernel("aggregate", scalarAgg, bestAgg);
+        }
+
+        // end to end: skip-list walk and decode included, one service loaded at a time
+        for (int volume : new int[]{1_000_000, 2_000_000}) {
+            System.out.println(String.format("aggregate() over %,d stored points:", volume));
+            double[] micros = new double[2];
+            AggregationKernels[] candidates = {scalar, best};
+            for (int k = 0; k < candidates.length; k++) {
+                TimeSeriesServiceImpl svc = new TimeSeriesServiceImpl(null, candidates[k]);
+                for (int i = 0; i < volume; i++) {
+                    svc.insert(i, "cpu.usage", randomValue(), Map.of());
+                }
+                micros[k] = timeKernel(() -> svc.aggregate("cpu.usage", 0, volume, null));
+            }
+            printKernel("aggregate()", micros[0], micros[1]);
+        }
+        System.out.println("  (aggregate() is dominated by the skip-list walk and decode, not the kernel)");
+    }
+
+    public void benchmarkQueryCache() {
+        System.out.println("\n--- Query Cache (sliding dashboard window) ---");
+
+        QueryCache cache = new QueryCache(10_000, 2_000_000);
+        TimeSeriesServiceImpl uncached = new TimeSeriesServiceImpl();
+        TimeSeriesServiceImpl cached = new TimeSeriesServiceImpl(null, cache);
+
+        // 10 minutes of history at 1 point/ms, last point just before now
+        long window = 600_000;
+        long now = System.currentTimeMillis();
+        for (long ts = now - window; ts < now; ts++) {
+            String metric = randomMetric();
+            double value = randomValue();
+            Map<String, String> tags = generateTags();
+            uncached.insert(ts, metric, value, tags);
+            cached.insert(ts, metric, value, tags);
+        }
+
+        for (TimeSeriesServiceImpl svc : new TimeSeriesServiceImpl[]{uncached, cached}) {
+            long[] latencies = new long[200];
+            for (int i = 0; i < latencies.length; i++) {
+                long queryStart = System.nanoTime();
+                long end = System.currentTimeMillis();
+                svc.query("cpu.usage", end - window, end, null);
+                latencies[i] = (System.nanoTime() - queryStart) / 1_000;
+            }
+            Arrays.sort(latencies);
+            System.out.println((svc == cached ? "Cached" : "Uncached") + " (200 refreshes, 10 min window):");
+            System.out.println("  P50: " + latencies[100] + " µs");
+            System.out.println("  P99: " + latencies[198] + " µs");
+        }
+        System.out.println("  " + cache.stats());
+    }
+
+    public void benchmarkSubscriptions() {
+        System.out.println("\n--- Subscriptions (insert overhead) ---");
+
+        for (int rules : new int[]{0, 500}) {
+            TimeSeriesServiceImpl svc = new TimeSeriesServiceImpl();
+            List<Subscription> subs = new ArrayList<>();
+            LongAdderListener listener = new LongAdderListener();
+            for (int i = 0; i < rules; i++) {
+                Map<String, String> filter = Map.of("host", hosts[i % hosts.length], "dc", datacenters[i % datacenters.length]);
+                SubscriptionConfig cfg = (i % 2 == 0) ? SubscriptionConfig.rawPoints() : SubscriptionConfig.windowed(1_000);
+                subs.add(svc.subscribe(metrics[i % metrics.length], filter, cfg, listener));
+            }
+
+            long start = System.nanoTime();
+            long baseTimestamp = System.currentTimeMillis();
+            for (int i = 0; i < 500_000; i++) {
+                svc.insert(baseTimestamp + i, randomMetric(), randomValue(), generateTags());
+            }
+            double duration = (System.nanoTime() - start) / 1e9;
+
+            long dropped = 0;
+            for (Subscription sub : subs) {
+                dropped += sub.getDroppedCount();
+                sub.cancel();
+            }
+            System.out.println(String.format("%d subscriptions: %.0f writes/sec (events=%,d, dropped=%,d)",
+                    rules, 500_000 / duration, listener.events.sum(), dropped));
+        }
+    }
+
+    private static final class LongAdderListener implements SubscriptionListener {
+        final java.util.concurrent.atomic.LongAdder events = new java.util.concurrent.atomic.LongAdder();
+
+        @Override
+        public void onPoint(DataPoint dp) {
+            events.increment();
+        }
+
+        @Override
+        public void onAggregate(long windowStart, long windowEnd, AggregateResult aggregate) {
+            events.increment();
+        }
+    }
+
+    public void benchmarkWal() throws java.io.IOException {
+        System.out.println("\n--- WAL Format (500K records) ---");
+
+        java.lang.management.ThreadMXBean cpu = java.lang.management.ManagementFactory.getThreadMXBean();
+        WalRecord[] records = new WalRecord[500_000];
+        long baseTimestamp = System.currentTimeMillis();
+        for (int i = 0; i < records.length; i++) {
+            records[i] = new WalRecord(baseTimestamp + i, randomMetric(), randomValue(), generateTags());
+        }
+
+        Path root = Path.of("data/wal-format-bench");
+        for (WalCompression compression : WalCompression.values()) {
+            Path dir = root.resolve(compression.name().toLowerCase());
+            deleteDir(dir);
+            WalConfig cfg = compression == WalCompression.NONE
+                    ? new WalConfig(dir, 256L << 20, WalSyncMode.BATCHED, 100, 0)
+                    : WalConfig.compressed(dir);
+
+            long cpuStart = cpu.getCurrentThreadCpuTime();
+            long start = System.nanoTime();
+            WalWriter writer = new WalWriter(cfg);
+            for (WalRecord rec : records) {
+                writer.append(rec);
+            }
+            writer.close();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long cpuNanos = cpu.getCurrentThreadCpuTime() - cpuStart;
+
+            long diskBytes;
+            try (var files = java.nio.file.Files.list(dir)) {
+                diskBytes = files.mapToLong(p -> p.toFile().length()).sum();
+            }
+
+            long replayStart = System.nanoTime();
+            long[] replayed = {0};
+            new WalReader(dir).replay(r -> replayed[0]++);
+            double replaySeconds = (System.nanoTime() - replayStart) / 1e9;
+
+            System.out.println(compression + ":");
+            System.out.println(String.format("  Write:  %.0f records/sec, %.1f MB/s to disk, %.0f ns CPU/record",
+                    records.length / seconds, diskBytes / 1e6 / seconds, (double) cpuNanos / records.length));
+            System.out.println(String.format("  Disk:   %,d bytes (%.1f bytes/record)", diskBytes, (double) diskBytes / records.length));
+            System.out.println(String.format("  Replay: %.0f records/sec (%,d records)", replayed[0] / replaySeconds, replayed[0]));
+        }
+        deleteDir(root);
+    }
+
+    private static void deleteDir(Path dir) throws java.io.IOException {
+        if (!java.nio.file.Files.exists(dir)) return;
+        try (var paths = java.nio.file.Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                java.nio.file.Files.delete(p);
+            }
+        }
+    }
+
+    private static volatile Object sink;
+
+    // median µs per call over 50 runs, after warmup
+    private static double timeKernel(java.util.function.Supplier<Object> kernel) {
+        for (int i = 0; i < 20; i++) {
+            sink = kernel.get();
+        }
+        long[] latencies = new long[50];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            sink = kernel.get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies[latencies.length / 2] / 1e3;
+    }
+
+    private static void printKernel(String name, double scalarMicros, double bestMicros) {
+        System.out.println(String.format("  %-17s scalar: %8.0f µs  active: %8.0f µs  (%.1fx)",
+                name, scalarMicros, bestMicros, scalarMicros / bestMicros));
+    }
+
+    public void runAllBenchmarks() throws Exception {
         System.out.println("\n--- TimeSeriesEngine Benchmarks ---");
 
         benchmarkInsert();
         benchmarkQuery();
         benchmarkScalability();
+        benchmarkAggregation();
+        benchmarkQueryCache();
+        benchmarkSubscriptions();
+        benchmarkWal();
 
         System.out.println("\n--- Complete ---\n");
     }
@@ -6,4 +6,6 @@ import java.util.Map;
 public interface TimeSeriesService {
     boolean insert(long timestamp, String metric, double value, Map<String, String> tags);
     public List<DataPoint> query(String metric, long timeStart, long timeEnd, Map<String,String> filters);
+    AggregateResult aggregate(String metric, long timeStart, long timeEnd, Map<String,String> filters);
+    Subscription subscribe(String metric, Map<String,String> filters, SubscriptionConfig config, SubscriptionListener listener);
 }
@@ -1,6 +1,7 @@
 package com.TSEngine.TSEngine;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -11,13 +12,30 @@ public class TimeSeriesServiceImpl implements TimeSeriesService {
 
     private final Map<String, ConcurrentSkipListMap<Long, List<DataPoint>>> metricMap = new ConcurrentHashMap<>();
     private final WalWriter walWriter;
+    private final AggregationKernels kernels;
+    private final QueryCache queryCache;
+    private final SubscriptionManager subscriptions = new SubscriptionManager();
 
     public TimeSeriesServiceImpl() {
-        this.walWriter = null;
+        this(null);
     }
 
     public TimeSeriesServiceImpl(WalWriter walWriter) {
+        this(walWriter, AggregationKernels.best());
+    }
+
+    public TimeSeriesServiceImpl(WalWriter walWriter, AggregationKernels kernels) {
+        this(walWriter, kernels, null);
+    }
+
+    public TimeSeriesServiceImpl(WalWriter walWriter, QueryCache queryCache) {
+        this(walWriter, AggregationKernels.best(), queryCache);
+    }
+
+    public TimeSeriesServiceImpl(WalWriter walWriter, AggregationKernels kernels, QueryCache queryCache) {
         this.walWriter = walWriter;
+        this.kernels = kernels;
+        this.queryCache = queryCache;
     }
 
     @Override
@@ -52,14 +70,41 @@ public class TimeSeriesServiceImpl implements TimeSeriesService {
                 return existingList;
             }
         });
+
+        if (queryCache != null) {
+            queryCache.invalidate(dp.getMetric(), dp.getTimestamp());
+        }
+        subscriptions.publish(dp);
     }
 
     public void replayInsert(WalRecord rec) {
         inMemoryInsert(new DataPoint(rec.timestamp, rec.metric, rec.value, rec.tags));
     }
 
+    /**
+     * Applies a segment that appeared in the WAL directory after this instance replayed it, such as a
+     * {@link BulkImporter} output. Nothing is logged again; points become queryable as they are applied.
+     *
+     * @return number of points applied
+     */
+    public long loadSegment(Path segment) throws IOException {
+        long[] n = {0};
+        new WalReader(segment.getParent()).replayFrom(segment, 0, rec -> {
+            replayInsert(rec);
+            n[0]++;
+        });
+        return n[0];
+    }
+
     @Override
     public List<DataPoint> query(String metric, long timeStart, long timeEnd, Map<String, String> filters) {
+        if (queryCache != null) {
+            return queryCache.query(metric, timeStart, timeEnd, filters, this::scan);
+        }
+        return scan(metric, timeStart, timeEnd, filters);
+    }
+
+    private List<DataPoint> scan(String metric, long timeStart, long timeEnd, Map<String, String> filters) {
         ConcurrentSkipListMap<Long, List<DataPoint>> series = metricMap.get(metric);
         if (series == null) return Collections.emptyList();
 
@@ -95,6 +140,55 @@ public class TimeSeriesServiceImpl implements TimeSeriesService {
         return results;
     }
 
+    @Override
+    public AggregateResult aggregate(String metric, long timeStart, long timeEnd, Map<String, String> filters) {
+        ConcurrentSkipListMap<Long, List<DataPoint>> series = metricMap.get(metric);
+        if (series == null) return AggregateResult.EMPTY;
+
+        // decode the window into a primitive block so the kernels can run over contiguous memory
+        double[] values = new double[1024];
+        int n = 0;
+
+        boolean filtered = filters != null && !filters.isEmpty();
+        for (List<DataPoint> dataPoints : series.subMap(timeStart, true, timeEnd, false).values()) {
+            for (DataPoint dp : dataPoints) {
+                if (filtered && !matchesFilters(dp.getTags(), filters)) continue;
+
+                if (n == values.length) {
+                    values = Arrays.copyOf(values, n << 1);
+                }
+                values[n++] = dp.getValue();
+            }
+        }
+
+        if (n == 0) return AggregateResult.EMPTY;
+        return kernels.aggregate(values, 0, n);
+    }
+
+    private static boolean matchesFilters(Map<String, String> tags, Map<String, String> filters) {
+        if (tags == null) return false;
+        // same semantics as query(): a missing tag or a null filter value never matches
+        for (Map.Entry<String, String> f : filters.entrySet()) {
+            String tagValue = tags.get(f.getKey());
+            if (tagValue == null || !tagValue.equals(f.getValue())) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Subscription subscribe(String metric, Map<String, String> filters,
+                                  SubscriptionConfig config, SubscriptionListener listener) {
+        return subscriptions.subscribe(metric, filters, config, listener);
+    }
+
+    public AggregationKernels getKernels() {
+        return kernels;
+    }
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
     public void printAllData() {
         for (Map.Entry<String, ConcurrentSkipListMap<Long, List<DataPoint>>> entry : metricMap.entrySet()) {
             String metric = entry.getKey();
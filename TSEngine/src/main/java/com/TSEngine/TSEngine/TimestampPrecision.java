@@ -0,0 +1,38 @@
+package com.TSEngine.TSEngine;
+
+import java.util.Locale;
+
+/** Unit of the timestamps in a {@link BulkImporter} input file; the engine stores milliseconds. */
+public enum TimestampPrecision {
+    /** Nanoseconds from 1e17, microseconds from 1e14, milliseconds below that. */
+    AUTO,
+    NANOSECONDS,
+    MICROSECONDS,
+    MILLISECONDS,
+    SECONDS;
+
+    public long toMillis(long ts) {
+        switch (this) {
+            case NANOSECONDS: return Math.floorDiv(ts, 1_000_000L);
+            case MICROSECONDS: return Math.floorDiv(ts, 1_000L);
+            case MILLISECONDS: return ts;
+            case SECONDS: return Math.multiplyExact(ts, 1_000L);
+            default:
+                long abs = Math.abs(ts);
+                if (abs >= 100_000_000_000_000_000L) return NANOSECONDS.toMillis(ts);
+                if (abs >= 100_000_000_000_000L) return MICROSECONDS.toMillis(ts);
+                return ts;
+        }
+    }
+
+    public static TimestampPrecision parse(String s) {
+        switch (s.toLowerCase(Locale.ROOT)) {
+            case "auto": return AUTO;
+            case "ns": return NANOSECONDS;
+            case "us": return MICROSECONDS;
+            case "ms": return MILLISECONDS;
+            case "s": return SECONDS;
+            default: throw new IllegalArgumentException("precision must be auto, ns, us, ms or s: " + s);
+        }
+    }
+}
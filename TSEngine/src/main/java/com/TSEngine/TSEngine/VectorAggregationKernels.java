@@ -0,0 +1,97 @@
+package com.TSEngine.TSEngine;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Only referenced through {@link AggregationKernels#best()}, which checks that the incubator
+ * module is resolved before loading this class.
+ */
+final class VectorAggregationKernels implements AggregationKernels {
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorAggregationKernels() {}
+
+    static VectorAggregationKernels create() {
+        return new VectorAggregationKernels();
+    }
+
+    @Override
+    public double sum(double[] values, int from, int to) {
+        DoubleVector acc = DoubleVector.zero(D);
+        int i = from;
+        int upper = from + D.loopBound(to - from);
+        for (; i < upper; i += D.length()) {
+            acc = acc.add(DoubleVector.fromArray(D, values, i));
+        }
+        double s = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            s += values[i];
+        }
+        return s;
+    }
+
+    @Override
+    public double min(double[] values, int from, int to) {
+        DoubleVector acc = DoubleVector.broadcast(D, Double.POSITIVE_INFINITY);
+        int i = from;
+        int upper = from + D.loopBound(to - from);
+        for (; i < upper; i += D.length()) {
+            acc = acc.min(DoubleVector.fromArray(D, values, i));
+        }
+        double m = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < to; i++) {
+            m = Math.min(m, values[i]);
+        }
+        return m;
+    }
+
+    @Override
+    public double max(double[] values, int from, int to) {
+        DoubleVector acc = DoubleVector.broadcast(D, Double.NEGATIVE_INFINITY);
+        int i = from;
+        int upper = from + D.loopBound(to - from);
+        for (; i < upper; i += D.length()) {
+            acc = acc.max(DoubleVector.fromArray(D, values, i));
+        }
+        double m = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            m = Math.max(m, values[i]);
+        }
+        return m;
+    }
+
+    @Override
+    public AggregateResult aggregate(double[] values, int from, int to) {
+        DoubleVector sumAcc = DoubleVector.zero(D);
+        DoubleVector minAcc = DoubleVector.broadcast(D, Double.POSITIVE_INFINITY);
+        DoubleVector maxAcc = DoubleVector.broadcast(D, Double.NEGATIVE_INFINITY);
+
+        int i = from;
+        int upper = from + D.loopBound(to - from);
+        for (; i < upper; i += D.length()) {
+            DoubleVector v = DoubleVector.fromArray(D, values, i);
+            sumAcc = sumAcc.add(v);
+            minAcc = minAcc.min(v);
+            maxAcc = maxAcc.max(v);
+        }
+
+        double sum = sumAcc.reduceLanes(VectorOperators.ADD);
+        double min = minAcc.reduceLanes(VectorOperators.MIN);
+        double max = maxAcc.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            double v = values[i];
+            sum += v;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+
+        return new AggregateResult(Math.max(0, to - from), sum, min, max);
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + D.length() + " lanes)";
+    }
+}
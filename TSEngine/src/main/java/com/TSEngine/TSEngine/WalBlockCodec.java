@@ -0,0 +1,112 @@
+package com.TSEngine.TSEngine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Block framing for compressed WAL segments. A block segment starts with {@link #MAGIC} (negative,
+ * so it can never be mistaken for a record length) followed by blocks of
+ * <pre>
+ * [rawLen int][compLen int][crc32(rawLen, compLen, compressed) int][compressed bytes]
+ * </pre>
+ * where the decompressed bytes are ordinary {@code [len][crc][payload]} record frames. The CRC
+ * covers both lengths, and {@link #isPlausible} bounds them before anything is allocated.
+ */
+public final class WalBlockCodec {
+    public static final int MAGIC = 0xC0DEB10C;
+    public static final int HEADER_BYTES = 4;
+    public static final int FRAME_BYTES = 12;
+    /** Upper bound for a block either way; a single record frame may not exceed it. */
+    public static final int MAX_BLOCK_BYTES = 64 << 20;
+    // deflate cannot expand input by more than ~1032:1
+    private static final int MAX_INFLATE_RATIO = 1032;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    private byte[] out = new byte[0];
+
+    /** Compresses {@code raw[0, len)} into a complete block frame ready to be written. */
+    public ByteBuffer encode(byte[] raw, int len) {
+        int bound = len + (len >> 3) + 64;
+        if (out.length < bound) out = new byte[bound];
+
+        deflater.reset();
+        deflater.setInput(raw, 0, len);
+        deflater.finish();
+        int compLen = 0;
+        while (!deflater.finished()) {
+            if (compLen == out.length) out = Arrays.copyOf(out, out.length << 1);
+            compLen += deflater.deflate(out, compLen, out.length - compLen);
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES + compLen);
+        frame.putInt(len);
+        frame.putInt(compLen);
+        frame.putInt(frameCrc(len, compLen, out));
+        frame.put(out, 0, compLen);
+        frame.flip();
+        return frame;
+    }
+
+    public static byte[] decode(byte[] compressed, int rawLen) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLen];
+            int n = 0;
+            while (n < rawLen && !inflater.finished()) {
+                int r = inflater.inflate(raw, n, rawLen - n);
+                if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += r;
+            }
+            if (n != rawLen) throw new IOException("block inflated to " + n + " bytes, expected " + rawLen);
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt WAL block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public static int frameCrc(int rawLen, int compLen, byte[] compressed) {
+        CRC32 c = new CRC32();
+        c.update(ByteBuffer.allocate(8).putInt(rawLen).putInt(compLen).flip());
+        c.update(compressed, 0, compLen);
+        return (int) c.getValue();
+    }
+
+    /** Rejects lengths no writer could have produced, so a corrupt header never drives an allocation. */
+    public static boolean isPlausible(int rawLen, int compLen) {
+        return rawLen >= 0 && compLen >= 0
+                && rawLen <= MAX_BLOCK_BYTES && compLen <= MAX_BLOCK_BYTES
+                && rawLen <= (long) compLen * MAX_INFLATE_RATIO + 64;
+    }
+
+    public static boolean isBlockSegment(FileChannel fc) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES);
+        while (head.hasRemaining()) {
+            if (fc.read(head, head.position()) <= 0) return false;
+        }
+        return head.getInt(0) == MAGIC;
+    }
+
+    public static boolean isBlockSegment(Path file) throws IOException {
+        if (!Files.exists(file)) return false;
+        try (FileChannel fc = FileChannel.open(file, READ)) {
+            return isBlockSegment(fc);
+        }
+    }
+
+    public void close() {
+        deflater.end();
+    }
+}
@@ -0,0 +1,6 @@
+package com.TSEngine.TSEngine;
+
+public enum WalCompression {
+    NONE,
+    DEFLATE
+}
@@ -8,17 +8,42 @@ public final class WalConfig {
     public final WalSyncMode walSyncMode;
     public final long fsyncEveryMillis;
     public final long fsyncEveryBytes;
+    public final WalCompression compression;
+    public final int blockBytes;
 
     public WalConfig(Path walDir, long maxSegmentBytes,
                      WalSyncMode walSyncMode, long fsyncEveryMillis, long fsyncEveryBytes) {
+        this(walDir, maxSegmentBytes, walSyncMode, fsyncEveryMillis, fsyncEveryBytes, WalCompression.NONE, 0);
+    }
+
+    public WalConfig(Path walDir, long maxSegmentBytes,
+                     WalSyncMode walSyncMode, long fsyncEveryMillis, long fsyncEveryBytes,
+                     WalCompression compression, int blockBytes) {
+        if (compression != WalCompression.NONE && blockBytes <= 0) {
+            throw new IllegalArgumentException("blockBytes must be > 0 for compressed segments");
+        }
+        if (blockBytes > WalBlockCodec.MAX_BLOCK_BYTES) {
+            throw new IllegalArgumentException("blockBytes must be <= " + WalBlockCodec.MAX_BLOCK_BYTES);
+        }
         this.walDir = walDir;
         this.maxSegmentBytes = maxSegmentBytes;
         this.walSyncMode = walSyncMode;
         this.fsyncEveryMillis = fsyncEveryMillis;
         this.fsyncEveryBytes = fsyncEveryBytes;
+        this.compression = compression;
+        this.blockBytes = blockBytes;
     }
 
     public static WalConfig defaultDurable(Path dir) {
         return new WalConfig(dir, 256L << 20, WalSyncMode.ALWAYS, 0, 0);
     }
+
+    /**
+     * 64KB compressed blocks. Records are buffered until the block fills, a background flush runs
+     * (every 100ms), or {@link WalWriter#flush()} / {@code close()} is called; a crash loses
+     * whatever is still buffered.
+     */
+    public static WalConfig compressed(Path dir) {
+        return new WalConfig(dir, 256L << 20, WalSyncMode.BATCHED, 100, 0, WalCompression.DEFLATE, 64 << 10);
+    }
 }
@@ -1,8 +1,11 @@
 package com.TSEngine.TSEngine;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
@@ -23,52 +26,88 @@ public class WalDumper {
 
         int recordCount = 0;
 
-        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ);
-             DataInputStream in = new DataInputStream(Channels.newInputStream(fc))) {
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            boolean blocks = WalBlockCodec.isBlockSegment(fc);
+            if (blocks) fc.position(WalBlockCodec.HEADER_BYTES);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(fc)));
+
+            if (!blocks) {
+                recordCount = dumpRecords(in, 0);
+            } else {
+                int blockCount = 0;
+                long offset = WalBlockCodec.HEADER_BYTES;
+                while (true) {
+                    WalReader.Block block = WalReader.readBlock(in);
+                    if (block == null) break;
+                    if (block.problem != null) {
+                        System.out.println("[Stopped at block #" + (blockCount + 1) + ", byte " + offset + ": " + block.problem + "]");
+                        System.out.println();
+                        break;
+                    }
+
+                    blockCount++;
+                    System.out.println("Block #" + blockCount);
+                    System.out.println("  Raw: " + block.records.length + " bytes, Compressed: " + block.compressedLength
+                            + " bytes (" + String.format("%.2f", (double) block.records.length / Math.max(1, block.compressedLength)) + "x)");
+                    System.out.println();
 
-            while (true) {
-                int len;
-                try {
-                    len = in.readInt();
-                } catch (EOFException eof) {
-                    break;
+                    recordCount = dumpRecords(new DataInputStream(new ByteArrayInputStream(block.records)), recordCount);
+                    offset += WalBlockCodec.FRAME_BYTES + block.compressedLength;
                 }
+                System.out.println("=== Total Blocks: " + blockCount + " ===");
+            }
+        }
 
-                int crc = in.readInt();
-                byte[] payload = in.readNBytes(len);
-                if (payload.length < len) break;
+        System.out.println("=== Total Records: " + recordCount + " ===");
+    }
 
-                int calculatedCrc = (int) WalCodec.crc32(payload);
-                boolean crcValid = calculatedCrc == crc;
+    private static int dumpRecords(DataInputStream in, int recordCount) throws IOException {
+        while (true) {
+            int len;
+            try {
+                len = in.readInt();
+            } catch (EOFException eof) {
+                break;
+            }
 
-                System.out.println("Record #" + (recordCount + 1));
-                System.out.println("  Length: " + len + " bytes");
-                System.out.println("  CRC: " + crc + " (calculated: " + calculatedCrc + ", " + (crcValid ? "VALID" : "INVALID") + ")");
+            byte[] rest = in.readNBytes(4);
+            byte[] payload = rest.length < 4 || len < 0 ? new byte[0] : in.readNBytes(len);
+            if (rest.length < 4 || len < 0 || payload.length < len) {
+                System.out.println("[Incomplete record #" + (recordCount + 1) + " - torn tail]");
+                System.out.println();
+                break;
+            }
+            int crc = ByteBuffer.wrap(rest).getInt();
 
-                if (!crcValid) {
-                    System.out.println("  [CRC mismatch - data may be corrupted]");
-                    break;
-                }
+            int calculatedCrc = (int) WalCodec.crc32(payload);
+            boolean crcValid = calculatedCrc == crc;
 
-                try {
-                    WalRecord rec = WalCodec.deserialize(new java.io.DataInputStream(
-                            new java.io.ByteArrayInputStream(payload)));
-                    
-                    System.out.println("  Timestamp: " + rec.timestamp);
-                    System.out.println("  Metric: " + rec.metric);
-                    System.out.println("  Value: " + rec.value);
-                    System.out.println("  Tags: " + formatTags(rec.tags));
-                    System.out.println();
+            System.out.println("Record #" + (recordCount + 1));
+            System.out.println("  Length: " + len + " bytes");
+            System.out.println("  CRC: " + crc + " (calculated: " + calculatedCrc + ", " + (crcValid ? "VALID" : "INVALID") + ")");
 
-                    recordCount++;
-                } catch (Exception e) {
-                    System.out.println("  [Error deserializing record: " + e.getMessage() + "]");
-                    System.out.println();
-                }
+            if (!crcValid) {
+                System.out.println("  [CRC mismatch - data may be corrupted]");
+                break;
             }
-        }
 
-        System.out.println("=== Total Records: " + recordCount + " ===");
+            try {
+                WalRecord rec = WalCodec.deserialize(new java.io.DataInputStream(
+                        new java.io.ByteArrayInputStream(payload)));
+                
+                System.out.println("  Timestamp: " + rec.timestamp);
+                System.out.println("  Metric: " + rec.metric);
+                System.out.println("  Value: " + rec.value);
+                System.out.println("  Tags: " + formatTags(rec.tags));
+                System.out.println();
+
+                recordCount++;
+            } catch (Exception e) {
+                System.out.println("  [Error deserializing record: " + e.getMessage() + "]");
+                System.out.println();
+            }
+        }
+        return recordCount;
     }
 
     public static void dumpDir(Path walDir) throws IOException {
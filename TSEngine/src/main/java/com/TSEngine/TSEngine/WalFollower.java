@@ -0,0 +1,333 @@
+package com.TSEngine.TSEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only replica that tails a WAL directory owned by another process's {@link WalWriter}.
+ * <p>
+ * It replays the existing segments like {@link TsEngineApplication} does, then keeps polling the
+ * active segment from the last applied offset. An incomplete or CRC-invalid frame at the tail is
+ * treated as a write still in flight and retried on the next poll; once a newer segment exists,
+ * the writer has rotated and the remainder of the old segment is skipped, the same way
+ * {@link WalReader#replay} stops at a torn tail. Segments written by {@link BulkImporter} are
+ * applied once each as soon as they appear.
+ * <p>
+ * Each poll only reads up to the segment sizes seen when it started, so a busy writer can't keep
+ * it draining forever. Progress and lag are published through volatiles and can be read while a
+ * poll is running.
+ */
+public class WalFollower implements AutoCloseable {
+
+    private final WalReader reader;
+    private final long pollMillis;
+    private final TimeSeriesServiceImpl state;
+    private final TimeSeriesService readOnlyView;
+
+    // written by the polling thread only, under this
+    private volatile Path currentSegment;
+    private volatile long currentOffset;
+    private volatile long appliedRecords;
+    private volatile long lastAppliedTimestamp = Long.MIN_VALUE;
+    private final Set<String> appliedBulkSegments = new HashSet<>();
+    private final Map<String, Long> partialBulkSegments = new HashMap<>();
+    // leader end positions not yet applied, oldest first, with the time each was first seen
+    private final Deque<Position> unapplied = new ArrayDeque<>();
+
+    private volatile long lagBytes;
+    private volatile long behindSinceMillis;
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    public WalFollower(Path walDir, long pollMillis) {
+        this(walDir, pollMillis, new TimeSeriesServiceImpl());
+    }
+
+    public WalFollower(Path walDir, long pollMillis, TimeSeriesServiceImpl state) {
+        this.reader = new WalReader(walDir);
+        this.pollMillis = pollMillis;
+        this.state = state;
+        this.readOnlyView = new ReadOnlyService(state);
+    }
+
+    /**
+     * Applies every complete record written since the previous call.
+     *
+     * @return number of records applied
+     */
+    public synchronized long pollOnce() throws IOException {
+        long before = appliedRecords;
+
+        // list before sizing: if a newer segment is listed, the older ones are already final
+        List<Path> segments = new ArrayList<>();
+        for (Path p : reader.segments()) {
+            String name = p.getFileName().toString();
+            // bulk imports are renamed into place whole, so each is applied once, in any order
+            if (name.startsWith(BulkImporter.SEGMENT_PREFIX)) {
+                if (!appliedBulkSegments.contains(name)) {
+                    applyBulkSegment(p, name);
+                }
+            } else {
+                segments.add(p);
+            }
+        }
+        Map<Path, Long> sizes = new HashMap<>();
+        for (Path p : segments) {
+            sizes.put(p, Files.size(p));
+        }
+        if (!segments.isEmpty()) {
+            Path last = segments.get(segments.size() - 1);
+            observe(new Position(last.getFileName().toString(), sizes.get(last), System.currentTimeMillis()));
+        }
+
+        while (true) {
+            if (currentSegment == null) {
+                if (segments.isEmpty()) break;
+                currentSegment = segments.get(0);
+                currentOffset = 0;
+            }
+
+            long limit = sizes.getOrDefault(currentSegment, Long.MAX_VALUE);
+            currentOffset = reader.replayFrom(currentSegment, currentOffset, limit, this::apply);
+            updateLag();
+
+            // anything short of the limit with a newer segment listed is a torn tail: skip it
+            Path next = nextSegment(segments, currentSegment);
+            if (next == null) break;
+            currentSegment = next;
+            currentOffset = 0;
+        }
+
+        return appliedRecords - before;
+    }
+
+    private void observe(Position head) {
+        Position newest = unapplied.peekLast();
+        if (newest != null && newest.compareTo(head) >= 0) return;
+        // bounded; if it fills up, lag is measured against the oldest entries kept
+        if (unapplied.size() < MAX_OBSERVATIONS) unapplied.addLast(head);
+    }
+
+    /**
+     * Only marks the segment applied once the whole replay succeeded; a retry after a failure skips
+     * the records that already made it in.
+     */
+    private void applyBulkSegment(Path p, String name) throws IOException {
+        long alreadyApplied = partialBulkSegments.getOrDefault(name, 0L);
+        long[] seen = {0};
+        try {
+            reader.replayFrom(p, 0, rec -> {
+                if (seen[0] >= alreadyApplied) apply(rec);
+                seen[0]++;
+            });
+        } finally {
+            if (seen[0] > alreadyApplied) partialBulkSegments.put(name, seen[0]);
+        }
+        partialBulkSegments.remove(name);
+        appliedBulkSegments.add(name);
+    }
+
+    private static final int MAX_OBSERVATIONS = 1 << 16;
+
+    private List<Path> walSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        for (Path p : reader.segments()) {
+            if (!p.getFileName().toString().startsWith(BulkImporter.SEGMENT_PREFIX)) segments.add(p);
+        }
+        return segments;
+    }
+
+    private void apply(WalRecord rec) {
+        state.replayInsert(rec);
+        // single writer, so the non-atomic increment is fine
+        appliedRecords = appliedRecords + 1;
+        lastAppliedTimestamp = rec.timestamp;
+    }
+
+    private static Path nextSegment(List<Path> segments, Path current) {
+        for (Path p : segments) {
+            if (p.getFileName().toString().compareTo(current.getFileName().toString()) > 0) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    private void updateLag() throws IOException {
+        String current = currentSegment.getFileName().toString();
+        long lag = 0;
+        Path last = null;
+        long lastSize = 0;
+        for (Path p : walSegments()) {
+            long size = Files.size(p);
+            int cmp = p.getFileName().toString().compareTo(current);
+            if (cmp == 0) {
+                lag += Math.max(0, size - currentOffset);
+            } else if (cmp > 0) {
+                lag += size;
+            }
+            last = p;
+            lastSize = size;
+        }
+        if (last != null) {
+            observe(new Position(last.getFileName().toString(), lastSize, System.currentTimeMillis()));
+        }
+
+        Position applied = new Position(current, currentOffset, 0);
+        while (!unapplied.isEmpty() && unapplied.peekFirst().compareTo(applied) <= 0) {
+            unapplied.pollFirst();
+        }
+        Position oldest = unapplied.peekFirst();
+        // the oldest unapplied data was first seen when the first end position past us was
+        behindSinceMillis = (lag == 0 || oldest == null) ? 0 : oldest.seenAtMillis;
+        lagBytes = lag;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "wal-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                pollOnce();
+            } catch (IOException e) {
+                // close() interrupts a read in progress
+                if (running) System.err.println("WAL follow failed: " + e);
+            }
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Query / subscribe view of the replicated state; {@code insert} is rejected. */
+    public TimeSeriesService getService() {
+        return readOnlyView;
+    }
+
+    /** Bytes written by the leader that have not been applied yet, as of the last poll. */
+    public long getLagBytes() {
+        return lagBytes;
+    }
+
+    /** Age of the oldest data the follower has seen but not applied yet, 0 when caught up. */
+    public long getLagMillis() {
+        long since = behindSinceMillis;
+        return since == 0 ? 0 : Math.max(0, System.currentTimeMillis() - since);
+    }
+
+    public long getAppliedRecords() {
+        return appliedRecords;
+    }
+
+    public long getLastAppliedTimestamp() {
+        return lastAppliedTimestamp;
+    }
+
+    public Path getCurrentSegment() {
+        return currentSegment;
+    }
+
+    public long getCurrentOffset() {
+        return currentOffset;
+    }
+
+    /** A leader end position: segment name, then byte offset. */
+    private static final class Position implements Comparable<Position> {
+        final String segment;
+        final long offset;
+        final long seenAtMillis;
+
+        Position(String segment, long offset, long seenAtMillis) {
+            this.segment = segment;
+            this.offset = offset;
+            this.seenAtMillis = seenAtMillis;
+        }
+
+        @Override
+        public int compareTo(Position o) {
+            int cmp = segment.compareTo(o.segment);
+            return cmp != 0 ? cmp : Long.compare(offset, o.offset);
+        }
+    }
+
+    private static final class ReadOnlyService implements TimeSeriesService {
+        private final TimeSeriesService delegate;
+
+        ReadOnlyService(TimeSeriesService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean insert(long timestamp, String metric, double value, Map<String, String> tags) {
+            throw new UnsupportedOperationException("follower is read-only");
+        }
+
+        @Override
+        public List<DataPoint> query(String metric, long timeStart, long timeEnd, Map<String, String> filters) {
+            return delegate.query(metric, timeStart, timeEnd, filters);
+        }
+
+        @Override
+        public AggregateResult aggregate(String metric, long timeStart, long timeEnd, Map<String, String> filters) {
+            return delegate.aggregate(metric, timeStart, timeEnd, filters);
+        }
+
+        @Override
+        public Subscription subscribe(String metric, Map<String, String> filters,
+                                      SubscriptionConfig config, SubscriptionListener listener) {
+            return delegate.subscribe(metric, filters, config, listener);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path walDir = Path.of(args.length > 0 ? args[0] : "data/wal");
+
+        try (WalFollower follower = new WalFollower(walDir, 50)) {
+            long t0 = System.nanoTime();
+            follower.pollOnce();
+            System.out.println(String.format("Replayed %,d records in %.0f ms",
+                    follower.getAppliedRecords(), (System.nanoTime() - t0) / 1e6));
+
+            follower.start();
+            while (true) {
+                Thread.sleep(1000);
+                Path segment = follower.getCurrentSegment();
+                System.out.println(String.format("applied=%,d segment=%s offset=%,d lag=%,d bytes / %d ms",
+                        follower.getAppliedRecords(), segment == null ? "-" : segment.getFileName(),
+                        follower.getCurrentOffset(), follower.getLagBytes(), follower.getLagMillis()));
+            }
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package com.TSEngine.TSEngine;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.stream.Collectors;
 
 public final class WalReader {
     private static final OpenOption READ = StandardOpenOption.READ;
@@ -21,46 +26,172 @@ public final class WalReader {
     }
 
     public void replay(Consumer<WalRecord> consumer) throws IOException {
-        if (!Files.exists(walDir)) return;
+        for (Path p : segments()) {
+            replayFrom(p, 0, consumer);
+        }
+    }
+
+    /** All {@code .log} segments in the WAL directory, oldest first. */
+    public List<Path> segments() throws IOException {
+        if (!Files.exists(walDir)) return List.of();
 
         try (var stream = Files.list(walDir)) {
-            stream
+            return stream
                 .filter(p -> p.getFileName().toString().endsWith(".log"))
                 .sorted()
-                .forEach(p -> {
-                    try {
-                        replayFile(p, consumer);
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                });
+                .collect(Collectors.toList());
         }
     }
 
-    private void replayFile(Path file, Consumer<WalRecord> consumer) throws IOException {
-        try (FileChannel fc = FileChannel.open(file, READ);
-             DataInputStream in = new DataInputStream(Channels.newInputStream(fc))) {
+    /**
+     * Replays the records of {@code file} starting at byte {@code offset}, stopping at EOF or at the
+     * first incomplete / CRC-invalid frame. Compressed segments are read a block at a time, so a
+     * torn block drops the whole block.
+     *
+     * @return offset just past the last record (or block) handed to the consumer
+     */
+    public long replayFrom(Path file, long offset, Consumer<WalRecord> consumer) throws IOException {
+        return replayFrom(file, offset, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Like {@link #replayFrom(Path, long, Consumer)}, but never applies a record (or block) that
+     * ends past {@code limit}, so a reader can bound its work while the file is still growing.
+     */
+    public long replayFrom(Path file, long offset, long limit, Consumer<WalRecord> consumer) throws IOException {
+        try (FileChannel fc = FileChannel.open(file, READ)) {
+            boolean blocks = WalBlockCodec.isBlockSegment(fc);
+            if (blocks && offset < WalBlockCodec.HEADER_BYTES) {
+                offset = WalBlockCodec.HEADER_BYTES;
+            }
+            fc.position(offset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(fc), 1 << 16));
 
+            return blocks ? replayBlocks(in, offset, limit, consumer) : replayRecords(in, offset, limit, consumer);
+        }
+    }
+
+    /**
+     * Length of the leading complete, CRC-valid frames of an uncompressed segment. Only the framing
+     * is checked; nothing is deserialized.
+     */
+    public static long validRecordLength(Path file) throws IOException {
+        long size = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file, READ), 1 << 16))) {
+            CRC32 c = new CRC32();
+            byte[] buf = new byte[256];
+            long offset = 0;
             while (true) {
                 int len;
+                int crc;
                 try {
                     len = in.readInt();
+                    crc = in.readInt();
                 } catch (EOFException eof) {
-                    break;
+                    return offset;
                 }
+                if (len < 0 || len > size - offset - 8) return offset;
 
-                int crc = in.readInt();
-                byte[] payload = in.readNBytes(len);
-                if (payload.length < len) break;
+                if (buf.length < len) buf = new byte[Math.max(len, buf.length << 1)];
+                in.readFully(buf, 0, len);
+                c.reset();
+                c.update(buf, 0, len);
+                if ((int) c.getValue() != crc) return offset;
+                offset += 8L + len;
+            }
+        }
+    }
 
-                if (WalCodec.crc32(payload) != crc) break;
+    private static long replayBlocks(DataInputStream in, long offset, long limit, Consumer<WalRecord> consumer) throws IOException {
+        while (true) {
+            Block block = readBlock(in);
+            if (block == null || block.problem != null) break;
+            if (offset + WalBlockCodec.FRAME_BYTES + block.compressedLength > limit) break;
 
-                try (DataInputStream pin = new DataInputStream(new ByteArrayInputStream(payload))) {
-                    WalRecord r = WalCodec.deserialize(pin);
-                    consumer.accept(r);
-                }
+            DataInputStream records = new DataInputStream(new ByteArrayInputStream(block.records));
+            // the block CRC already matched, so a short replay here means a writer bug, not a torn tail
+            if (replayRecords(records, 0, Long.MAX_VALUE, consumer) != block.records.length) break;
+
+            offset += WalBlockCodec.FRAME_BYTES + block.compressedLength;
+        }
+        return offset;
+    }
+
+    /**
+     * Reads the next {@code [rawLen][compLen][crc][compressed]} frame and inflates it.
+     *
+     * @return the block, {@code null} at a clean EOF, or a block whose {@link Block#problem} says why
+     *         it is torn / corrupt
+     */
+    static Block readBlock(DataInputStream in) throws IOException {
+        byte[] header = in.readNBytes(WalBlockCodec.FRAME_BYTES);
+        if (header.length == 0) return null;
+        if (header.length < WalBlockCodec.FRAME_BYTES) {
+            return Block.bad("short read: " + header.length + " of " + WalBlockCodec.FRAME_BYTES + " header bytes");
+        }
+        ByteBuffer h = ByteBuffer.wrap(header);
+        int rawLen = h.getInt();
+        int compLen = h.getInt();
+        int crc = h.getInt();
+        if (!WalBlockCodec.isPlausible(rawLen, compLen)) {
+            return Block.bad("implausible lengths: rawLen=" + rawLen + ", compLen=" + compLen);
+        }
+
+        byte[] compressed = in.readNBytes(compLen);
+        if (compressed.length < compLen) {
+            return Block.bad("short read: " + compressed.length + " of " + compLen + " compressed bytes");
+        }
+        if (WalBlockCodec.frameCrc(rawLen, compLen, compressed) != crc) {
+            return Block.bad("CRC mismatch");
+        }
+
+        try {
+            return new Block(WalBlockCodec.decode(compressed, rawLen), compLen, null);
+        } catch (IOException e) {
+            return Block.bad("inflate failed: " + e.getMessage());
+        }
+    }
+
+    static final class Block {
+        final byte[] records;
+        final int compressedLength;
+        /** Why the block can't be used, {@code null} for a good block. */
+        final String problem;
+
+        Block(byte[] records, int compressedLength, String problem) {
+            this.records = records;
+            this.compressedLength = compressedLength;
+            this.problem = problem;
+        }
+
+        static Block bad(String problem) {
+            return new Block(null, 0, problem);
+        }
+    }
+
+    private static long replayRecords(DataInputStream in, long offset, long limit, Consumer<WalRecord> consumer) throws IOException {
+        while (true) {
+            int len;
+            int crc;
+            try {
+                len = in.readInt();
+                crc = in.readInt();
+            } catch (EOFException eof) {
+                break;
             }
+            if (len < 0 || offset + 8L + len > limit) break;
+
+            byte[] payload = in.readNBytes(len);
+            if (payload.length < len) break;
+
+            if (WalCodec.crc32(payload) != crc) break;
+
+            try (DataInputStream pin = new DataInputStream(new ByteArrayInputStream(payload))) {
+                WalRecord r = WalCodec.deserialize(pin);
+                consumer.accept(r);
+            }
+            offset += 8L + len;
         }
+        return offset;
     }
 }
-
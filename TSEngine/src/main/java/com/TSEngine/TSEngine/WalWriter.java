@@ -8,6 +8,9 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.OptionalInt;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static java.nio.file.StandardOpenOption.*;
 
@@ -18,11 +21,35 @@ public class WalWriter{
     private FileChannel ch;
     private long currentSize;
 
+    // block mode only: records buffered for the next compressed block
+    private final WalBlockCodec blockCodec;
+    private ByteBuffer block;
+    private long lastBlockMillis = System.currentTimeMillis();
+    // bounds how long a quiet writer keeps records buffered
+    private final ScheduledExecutorService flusher;
 
     public WalWriter(WalConfig walConfig) throws IOException {
         this.walConfig = walConfig;
+        if (walConfig.compression != WalCompression.NONE) {
+            this.blockCodec = new WalBlockCodec();
+            this.block = ByteBuffer.allocate(walConfig.blockBytes);
+        } else {
+            this.blockCodec = null;
+        }
         Files.createDirectories(walConfig.walDir);
         initFromDisk();
+
+        if (blockCodec != null && walConfig.walSyncMode != WalSyncMode.ALWAYS && walConfig.fsyncEveryMillis > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "wal-block-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::timedFlush,
+                    walConfig.fsyncEveryMillis, walConfig.fsyncEveryMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
     }
 
     private void initFromDisk() throws IOException {
@@ -43,8 +70,20 @@ public class WalWriter{
                 currentPath = walConfig.walDir.resolve(
                     String.format("wal-%06d.log", segmentIndex)
                 );
+                // never mix record and block framing inside one segment, and never append behind a
+                // torn tail: replay stops there. Block segments always get a fresh one, since a
+                // block buffered at the last shutdown may be half written.
+                long size = Files.size(currentPath);
+                if (size > 0 && (WalBlockCodec.isBlockSegment(currentPath)
+                        || blockCodec != null
+                        || WalReader.validRecordLength(currentPath) != size)) {
+                    segmentIndex++;
+                    openNewSegment();
+                    return;
+                }
                 ch = FileChannel.open(currentPath, CREATE, WRITE, APPEND);
                 currentSize = ch.size();
+                writeBlockHeaderIfEmpty();
                 return;
             }
         }
@@ -57,6 +96,13 @@ public class WalWriter{
         currentPath = walConfig.walDir.resolve(fin);
         ch = FileChannel.open(currentPath, CREATE, WRITE, APPEND);
         currentSize = ch.size();
+        writeBlockHeaderIfEmpty();
+    }
+
+    private void writeBlockHeaderIfEmpty() throws IOException {
+        if (blockCodec == null || currentSize > 0) return;
+        writeInt(WalBlockCodec.MAGIC);
+        currentSize = WalBlockCodec.HEADER_BYTES;
     }
     
     public synchronized void append(WalRecord rec) throws IOException {
@@ -65,9 +111,15 @@ public class WalWriter{
         int crc = WalCodec.crc32(payload);
         int len = payload.length;
 
-        writeInt(len);
-        writeInt(crc);
-        writeBytes(payload);
+        if (blockCodec != null) {
+            appendToBlock(payload, crc);
+            return;
+        }
+
+        // one write per record instead of one per field
+        ByteBuffer frame = ByteBuffer.allocate(8 + len);
+        frame.putInt(len).putInt(crc).put(payload).flip();
+        writeFully(frame);
 
         currentSize += 8L + len;
 
@@ -76,6 +128,60 @@ public class WalWriter{
         }
     }
 
+    private void appendToBlock(byte[] payload, int crc) throws IOException {
+        int frameLen = 8 + payload.length;
+        if (frameLen > WalBlockCodec.MAX_BLOCK_BYTES) {
+            throw new IOException("WAL record of " + frameLen + " bytes exceeds the block limit");
+        }
+        if (block.position() > 0 && block.position() + frameLen > walConfig.blockBytes) {
+            flushBlock();
+        }
+        if (block.remaining() < frameLen) {
+            // a single record larger than blockBytes gets a block of its own
+            block = ByteBuffer.allocate(frameLen);
+        }
+        block.putInt(payload.length).putInt(crc).put(payload);
+
+        long now = System.currentTimeMillis();
+        if (block.position() >= walConfig.blockBytes
+                || walConfig.walSyncMode == WalSyncMode.ALWAYS
+                || (walConfig.fsyncEveryMillis > 0 && now - lastBlockMillis >= walConfig.fsyncEveryMillis)) {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (block == null || block.position() == 0) return;
+
+        ByteBuffer frame = blockCodec.encode(block.array(), block.position());
+        int frameLen = frame.remaining();
+        writeFully(frame);
+
+        if (block.capacity() != walConfig.blockBytes) {
+            block = ByteBuffer.allocate(walConfig.blockBytes);
+        } else {
+            block.clear();
+        }
+        lastBlockMillis = System.currentTimeMillis();
+        currentSize += frameLen;
+
+        if (currentSize >= walConfig.maxSegmentBytes) {
+            rotate();
+        }
+    }
+
+    /** Writes out any partially filled block. No-op for uncompressed segments. */
+    public synchronized void flush() throws IOException {
+        flushBlock();
+    }
+
+    private void timedFlush() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("WAL block flush failed: " + e);
+        }
+    }
 
     private void rotate() throws IOException {
         ch.force(true);
@@ -87,19 +193,23 @@ public class WalWriter{
     private void writeInt(int v) throws IOException {
         ByteBuffer buf = ByteBuffer.allocate(4);
         buf.putInt(v).flip();
-        while (buf.hasRemaining()) {
-            ch.write(buf);
-        }
+        writeFully(buf);
     }
 
-    private void writeBytes(byte[] bytes) throws IOException {
-        ByteBuffer buf = ByteBuffer.wrap(bytes);
+    private void writeFully(ByteBuffer buf) throws IOException {
         while (buf.hasRemaining()) {
             ch.write(buf);
         }
     }
 
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flushBlock();
+        if (blockCodec != null) {
+            blockCodec.close();
+        }
         if (ch != null) {
             ch.force(true);
             ch.close();
@@ -0,0 +1,104 @@
+package com.TSEngine.TSEngine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class AggregationKernelsTests {
+
+	private final AggregationKernels scalar = ScalarAggregationKernels.INSTANCE;
+	private AggregationKernels vector;
+
+	@BeforeEach
+	void vectorKernels() {
+		vector = AggregationKernels.best();
+		assumeFalse(vector == scalar, "jdk.incubator.vector not resolved");
+	}
+
+	@Test
+	void matchScalarForEveryLengthAndOffset() {
+		double[] values = new double[300];
+		Random random = new Random(7);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextDouble() * 200 - 100;
+		}
+
+		// covers ranges shorter than one vector, exact multiples and ragged tails
+		for (int from = 0; from < 9; from++) {
+			for (int to = from; to <= values.length; to += (to < from + 40 ? 1 : 17)) {
+				assertSame(values, from, to);
+			}
+		}
+	}
+
+	@Test
+	void emptyRange() {
+		double[] values = {1, 2, 3};
+		assertEquals(0.0, vector.sum(values, 1, 1));
+		assertEquals(Double.POSITIVE_INFINITY, vector.min(values, 1, 1));
+		assertEquals(Double.NEGATIVE_INFINITY, vector.max(values, 1, 1));
+
+		AggregateResult r = vector.aggregate(values, 2, 2);
+		assertEquals(0, r.getCount());
+		assertTrue(Double.isNaN(r.getMin()));
+		assertTrue(Double.isNaN(r.getMax()));
+	}
+
+	@Test
+	void nanPropagatesLikeScalar() {
+		for (int at : new int[]{0, 3, 37}) {
+			double[] values = new double[40];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = i;
+			}
+			values[at] = Double.NaN;
+
+			assertTrue(Double.isNaN(vector.sum(values, 0, values.length)));
+			assertTrue(Double.isNaN(vector.min(values, 0, values.length)));
+			assertTrue(Double.isNaN(vector.max(values, 0, values.length)));
+			AggregateResult r = vector.aggregate(values, 0, values.length);
+			assertTrue(Double.isNaN(r.getSum()) && Double.isNaN(r.getMin()) && Double.isNaN(r.getMax()));
+			assertSame(values, 0, values.length);
+		}
+	}
+
+	@Test
+	void serviceAggregateMatchesScalar() {
+		TimeSeriesServiceImpl withScalar = new TimeSeriesServiceImpl(null, scalar);
+		TimeSeriesServiceImpl withVector = new TimeSeriesServiceImpl(null, vector);
+		for (int i = 0; i < 1000; i++) {
+			Map<String, String> tags = Map.of("host", "h" + (i % 3));
+			withScalar.insert(i, "cpu", i * 0.25, tags);
+			withVector.insert(i, "cpu", i * 0.25, tags);
+		}
+
+		Map<String, String> filter = Map.of("host", "h1");
+		AggregateResult expected = withScalar.aggregate("cpu", 13, 977, filter);
+		AggregateResult actual = withVector.aggregate("cpu", 13, 977, filter);
+		assertEquals(expected.getCount(), actual.getCount());
+		assertEquals(expected.getSum(), actual.getSum(), 1e-9);
+		assertEquals(expected.getMin(), actual.getMin());
+		assertEquals(expected.getMax(), actual.getMax());
+	}
+
+	private void assertSame(double[] values, int from, int to) {
+		double expectedSum = scalar.sum(values, from, to);
+		// lanes add in a different order, so allow rounding noise
+		assertEquals(expectedSum, vector.sum(values, from, to), 1e-9, "sum " + from + ".." + to);
+		assertEquals(scalar.min(values, from, to), vector.min(values, from, to), "min " + from + ".." + to);
+		assertEquals(scalar.max(values, from, to), vector.max(values, from, to), "max " + from + ".." + to);
+
+		AggregateResult expected = scalar.aggregate(values, from, to);
+		AggregateResult actual = vector.aggregate(values, from, to);
+		assertEquals(expected.getCount(), actual.getCount());
+		assertEquals(expected.getSum(), actual.getSum(), 1e-9);
+		assertEquals(expected.getMin(), actual.getMin());
+		assertEquals(expected.getMax(), actual.getMax());
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.TSEngine.TSEngine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkImporterTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void csvRoundTripSortedBySeriesAndTime() throws Exception {
+		StringBuilder csv = new StringBuilder("timestamp,metric,value,tags\n");
+		for (int i = 999; i >= 0; i--) {
+			csv.append(i).append(",cpu,").append(i * 0.5).append(",host=h").append(i % 4).append('\n');
+		}
+		csv.append("not-a-number,cpu,1\n");
+		csv.append("5,cpu\n");
+		csv.append("6,cpu,1,badtag\n");
+		Path input = write("history.csv", csv.toString());
+
+		// a tiny budget forces hundreds of runs and a multi-pass merge
+		BulkImporter.Result r = new BulkImporter(dir.resolve("wal"), 4, 4 * 2_000, TimestampPrecision.AUTO)
+				.importFiles(List.of(input));
+
+		assertEquals(1000, r.getPoints());
+		assertEquals(3, r.getSkippedLines());
+		assertTrue(r.getRuns() > 64, "runs " + r.getRuns());
+		assertTrue(r.getSegment().getFileName().toString().startsWith(BulkImporter.SEGMENT_PREFIX));
+
+		List<WalRecord> replayed = replay();
+		assertEquals(1000, replayed.size());
+		for (int i = 1; i < replayed.size(); i++) {
+			WalRecord a = replayed.get(i - 1);
+			WalRecord b = replayed.get(i);
+			int series = a.tags.get("host").compareTo(b.tags.get("host"));
+			assertTrue(series < 0 || (series == 0 && a.timestamp < b.timestamp), a.tags + "@" + a.timestamp);
+		}
+
+		// no scratch files left behind
+		try (var files = Files.list(dir.resolve("wal"))) {
+			assertEquals(List.of(r.getSegment()), files.toList());
+		}
+	}
+
+	@Test
+	void lineProtocolSkipsMalformedLinesWhole() throws Exception {
+		Path input = write("points.lp", String.join("\n",
+				"# comment",
+				"cpu,host=a value=1,idle=2i 1000",
+				"cpu value=1,state=\"up\" 2000",
+				"cpu,host=a value=3",
+				"mem,host=b value=4 3000",
+				""));
+
+		BulkImporter.Result r = new BulkImporter(dir, 2).importFiles(List.of(input));
+
+		assertEquals(3, r.getPoints());
+		assertEquals(2, r.getSkippedLines());
+		List<WalRecord> replayed = replay();
+		assertEquals(List.of("cpu:1000", "cpu.idle:1000", "mem:3000"),
+				replayed.stream().map(rec -> rec.metric + ":" + rec.timestamp).toList());
+		assertEquals(2.0, replayed.get(1).value);
+	}
+
+	@Test
+	void timestampPrecision() throws Exception {
+		long ms = 1_700_000_000_123L;
+		Path input = write("precision.lp", String.join("\n",
+				"ns value=1 " + ms * 1_000_000L,
+				"us value=1 " + ms * 1_000L,
+				"ms value=1 " + ms,
+				""));
+		new BulkImporter(dir, 1).importFiles(List.of(input));
+		for (WalRecord rec : replay()) {
+			assertEquals(ms, rec.timestamp, rec.metric);
+		}
+
+		assertEquals(ms, TimestampPrecision.SECONDS.toMillis(ms / 1000) + 123);
+		assertEquals(5, TimestampPrecision.MILLISECONDS.toMillis(5));
+		assertEquals(5, TimestampPrecision.AUTO.toMillis(5));
+	}
+
+	@Test
+	void runningServiceLoadsTheNewSegment() throws Exception {
+		TimeSeriesServiceImpl service = new TimeSeriesServiceImpl();
+		service.insert(1, "cpu", 1, Map.of());
+
+		Path input = write("late.csv", "2,cpu,2\n3,cpu,3\n");
+		BulkImporter.Result r = new BulkImporter(dir, 1).importFiles(List.of(input));
+		assertEquals(1, service.query("cpu", 0, 10, null).size());
+
+		assertEquals(2, service.loadSegment(r.getSegment()));
+		assertEquals(3, service.aggregate("cpu", 0, 10, null).getCount());
+	}
+
+	private Path write(String name, String content) throws IOException {
+		Path p = dir.resolve(name);
+		Files.writeString(p, content);
+		return p;
+	}
+
+	private List<WalRecord> replay() throws IOException {
+		Path wal = Files.exists(dir.resolve("wal")) ? dir.resolve("wal") : dir;
+		List<WalRecord> out = new ArrayList<>();
+		new WalReader(wal).replay(out::add);
+		return out;
+	}
+
+}
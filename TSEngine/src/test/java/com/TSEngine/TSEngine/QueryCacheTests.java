@@ -0,0 +1,128 @@
+package com.TSEngine.TSEngine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTests {
+
+	private static final long BUCKET = 10_000;
+
+	private final TimeSeriesServiceImpl store = new TimeSeriesServiceImpl();
+	private long now = 100_000;
+	private QueryCache cache;
+	private int scans;
+
+	@BeforeEach
+	void setUp() {
+		cache = new QueryCache(BUCKET, 1_000_000, () -> now);
+	}
+
+	@Test
+	void closedBucketsAreReused() {
+		for (long ts = 0; ts < 100_000; ts += 1000) {
+			insert(ts, ts % 2000 == 0 ? "a" : "b");
+		}
+
+		assertEquals(store.query("cpu", 0, 100_000, null), query(0, 100_000, null));
+		scans = 0;
+		assertEquals(store.query("cpu", 0, 100_000, null), query(0, 100_000, null));
+		assertEquals(0, scans);
+
+		// a sliding window only scans its ragged edges
+		assertEquals(store.query("cpu", 4_500, 95_500, null), query(4_500, 95_500, null));
+		assertEquals(2, scans);
+
+		Map<String, String> filter = Map.of("host", "a");
+		assertEquals(store.query("cpu", 0, 100_000, filter), query(0, 100_000, filter));
+		assertEquals(50, query(0, 100_000, filter).size());
+	}
+
+	@Test
+	void lateInsertInvalidatesOnlyItsBucket() {
+		for (long ts = 0; ts < 100_000; ts += 1000) {
+			insert(ts, "a");
+		}
+		query(0, 100_000, null);
+
+		insert(15_500, "a");
+		scans = 0;
+		List<DataPoint> result = query(0, 100_000, null);
+
+		assertEquals(store.query("cpu", 0, 100_000, null), result);
+		assertEquals(101, result.size());
+		assertEquals(1, scans);
+		assertEquals(1, cache.stats().getInvalidationCount());
+	}
+
+	@Test
+	void sparseRangeIsScannedOnceAndEmptyBucketsAreNotCached() {
+		now = 3 * 86_400_000L;
+		for (int i = 0; i < 100; i++) {
+			insert(now - 50_000 + i * 100, "a");
+		}
+
+		// 1,000 buckets with data in only a few: one scan for the whole run of misses
+		long from = now - 1000 * BUCKET;
+		assertEquals(store.query("cpu", from, now, null), query(from, now, null));
+		assertEquals(1, scans);
+		assertEquals(1, cache.stats().getEntryCount());
+
+		// wider than MAX_BUCKETS_PER_QUERY: plain scan, nothing cached
+		cache.clear();
+		scans = 0;
+		assertEquals(100, query(0, now, null).size());
+		assertEquals(1, scans);
+		assertEquals(0, cache.stats().getEntryCount());
+	}
+
+	@Test
+	void nullFilterBehavesLikeAnUncachedQuery() {
+		for (long ts = 0; ts < 100_000; ts += 1000) {
+			insert(ts, "a");
+		}
+
+		Map<String, String> nullValue = new HashMap<>();
+		nullValue.put("host", null);
+		assertEquals(store.query("cpu", 0, 100_000, nullValue), query(0, 100_000, nullValue));
+		assertTrue(query(0, 100_000, nullValue).isEmpty());
+
+		Map<String, String> nullKey = new HashMap<>();
+		nullKey.put(null, "a");
+		assertEquals(store.query("cpu", 0, 100_000, nullKey), query(0, 100_000, nullKey));
+		assertEquals(0, cache.stats().getEntryCount());
+	}
+
+	@Test
+	void cachedServiceMatchesUncached() {
+		TimeSeriesServiceImpl cached = new TimeSeriesServiceImpl(null, cache);
+		for (long ts = 0; ts < 100_000; ts += 700) {
+			store.insert(ts, "cpu", ts, Map.of("host", "a"));
+			cached.insert(ts, "cpu", ts, Map.of("host", "a"));
+		}
+		cached.query("cpu", 0, 100_000, null);
+		store.insert(42_000, "cpu", -1, Map.of("host", "a"));
+		cached.insert(42_000, "cpu", -1, Map.of("host", "a"));
+
+		// separate stores hold separate DataPoint instances
+		assertEquals(store.query("cpu", 0, 100_000, null).toString(), cached.query("cpu", 0, 100_000, null).toString());
+	}
+
+	private void insert(long ts, String host) {
+		store.insert(ts, "cpu", ts * 0.5, Map.of("host", host));
+		cache.invalidate("cpu", ts);
+	}
+
+	private List<DataPoint> query(long from, long to, Map<String, String> filters) {
+		return cache.query("cpu", from, to, filters, (m, s, e, f) -> {
+			scans++;
+			return store.query(m, s, e, f);
+		});
+	}
+
+}
@@ -0,0 +1,216 @@
+package com.TSEngine.TSEngine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionTests {
+
+	private final TimeSeriesServiceImpl service = new TimeSeriesServiceImpl();
+
+	@Test
+	void matchesMetricAndEveryFilter() throws Exception {
+		Recorder byHost = new Recorder();
+		Recorder byHostAndDc = new Recorder();
+		Recorder all = new Recorder();
+		Recorder byDc = new Recorder();
+		Recorder otherMetric = new Recorder();
+		service.subscribe("cpu", Map.of("host", "a"), SubscriptionConfig.rawPoints(), byHost);
+		service.subscribe("cpu", Map.of("host", "a", "dc", "x"), SubscriptionConfig.rawPoints(), byHostAndDc);
+		service.subscribe("cpu", null, SubscriptionConfig.rawPoints(), all);
+		service.subscribe("cpu", Map.of("dc", "x"), SubscriptionConfig.rawPoints(), byDc);
+		service.subscribe("mem", Map.of(), SubscriptionConfig.rawPoints(), otherMetric);
+
+		service.insert(1, "cpu", 1, Map.of("host", "a", "dc", "x"));
+		service.insert(2, "cpu", 2, Map.of("host", "a", "dc", "y"));
+		service.insert(3, "cpu", 3, Map.of("host", "b"));
+		service.insert(4, "cpu", 4, null);
+
+		await(() -> all.points.size() == 4);
+		await(() -> byHost.points.size() == 2);
+		assertEquals(List.of(1L, 2L), byHost.timestamps());
+		assertEquals(List.of(1L), byHostAndDc.timestamps());
+		assertEquals(List.of(1L), byDc.timestamps());
+		assertEquals(List.of(1L, 2L, 3L, 4L), all.timestamps());
+		assertTrue(otherMetric.points.isEmpty());
+	}
+
+	@Test
+	void nullFiltersAreRejectedAndNeverReachInsert() {
+		Map<String, String> nullValue = new HashMap<>();
+		nullValue.put("a", "x");
+		nullValue.put("b", null);
+		assertThrows(IllegalArgumentException.class,
+				() -> service.subscribe("m", nullValue, SubscriptionConfig.rawPoints(), new Recorder()));
+
+		Map<String, String> nullKey = new HashMap<>();
+		nullKey.put(null, "x");
+		assertThrows(IllegalArgumentException.class,
+				() -> service.subscribe("m", nullKey, SubscriptionConfig.rawPoints(), new Recorder()));
+
+		assertTrue(service.insert(1, "m", 1, Map.of("a", "x", "b", "y")));
+	}
+
+	@Test
+	void publishNeverThrows() {
+		SubscriptionManager manager = new SubscriptionManager(1);
+		manager.subscribe("m", null, SubscriptionConfig.rawPoints(), new Recorder());
+		manager.shutdown();
+
+		assertDoesNotThrow(() -> manager.publish(new DataPoint(1, "m", 1, Map.of())));
+	}
+
+	@Test
+	void dropNewestKeepsTheQueuedPoints() throws Exception {
+		Recorder r = new Recorder().blockFirst();
+		Subscription sub = fillQueue(SlowConsumerPolicy.DROP_NEWEST, r);
+
+		r.release.countDown();
+		await(() -> r.points.size() == 3);
+		Thread.sleep(50);
+		assertEquals(List.of(0L, 1L, 2L), r.timestamps());
+		assertEquals(2, sub.getDroppedCount());
+		assertEquals(3, sub.getDeliveredCount());
+	}
+
+	@Test
+	void dropOldestKeepsTheLatestPoints() throws Exception {
+		Recorder r = new Recorder().blockFirst();
+		Subscription sub = fillQueue(SlowConsumerPolicy.DROP_OLDEST, r);
+
+		r.release.countDown();
+		await(() -> r.points.size() == 3);
+		Thread.sleep(50);
+		assertEquals(List.of(0L, 3L, 4L), r.timestamps());
+		assertEquals(2, sub.getDroppedCount());
+	}
+
+	@Test
+	void disconnectUnregistersTheSubscription() throws Exception {
+		Recorder r = new Recorder().blockFirst();
+		Subscription sub = fillQueue(SlowConsumerPolicy.DISCONNECT, r);
+		assertFalse(sub.isActive());
+
+		r.release.countDown();
+		assertTrue(r.disconnected.await(5, TimeUnit.SECONDS));
+		assertEquals(List.of(0L), r.timestamps());
+		assertEquals(0, sub.getQueuedCount());
+
+		service.insert(10, "cpu", 10, Map.of());
+		Thread.sleep(50);
+		assertEquals(List.of(0L), r.timestamps());
+	}
+
+	@Test
+	void cancelStopsDeliveryOfQueuedPoints() throws Exception {
+		Recorder r = new Recorder().blockFirst();
+		Subscription sub = service.subscribe("cpu", null,
+				new SubscriptionConfig(0, 10, SlowConsumerPolicy.DROP_NEWEST), r);
+		service.insert(0, "cpu", 0, Map.of());
+		assertTrue(r.entered.await(5, TimeUnit.SECONDS));
+		service.insert(1, "cpu", 1, Map.of());
+		service.insert(2, "cpu", 2, Map.of());
+
+		sub.cancel();
+		r.release.countDown();
+		Thread.sleep(100);
+
+		assertEquals(List.of(0L), r.timestamps());
+		assertEquals(0, sub.getQueuedCount());
+	}
+
+	@Test
+	void windowedAggregatesAndLatePointsForEvictedWindows() throws Exception {
+		Recorder r = new Recorder();
+		Subscription sub = service.subscribe("cpu", Map.of("host", "a"), SubscriptionConfig.windowed(1000), r);
+
+		// two points in each of 17 windows; the 17th evicts window 0
+		for (long ts = 0; ts < 17_000; ts += 500) {
+			service.insert(ts, "cpu", ts / 500, Map.of("host", "a"));
+		}
+		service.insert(10, "cpu", 99, Map.of("host", "a"));
+		service.insert(20, "cpu", 99, Map.of("host", "b"));
+
+		await(() -> sub.getDeliveredCount() + sub.getDroppedCount() == 35);
+		assertEquals(34, sub.getDeliveredCount());
+		assertEquals(1, sub.getDroppedCount());
+
+		await(() -> r.latest.size() == 17 && r.latest.get(16_000L).getCount() == 2);
+		for (long w = 0; w < 17_000; w += 1000) {
+			AggregateResult agg = r.latest.get(w);
+			long first = w / 500;
+			assertEquals(2, agg.getCount(), "window " + w);
+			assertEquals(first + first + 1, agg.getSum());
+			assertEquals(first, agg.getMin());
+			assertEquals(first + 1, agg.getMax());
+		}
+	}
+
+	/** Blocks the delivery thread on point 0, then offers points 1..4 into a queue of 2. */
+	private Subscription fillQueue(SlowConsumerPolicy policy, Recorder r) throws InterruptedException {
+		Subscription sub = service.subscribe("cpu", null, new SubscriptionConfig(0, 2, policy), r);
+		service.insert(0, "cpu", 0, Map.of());
+		assertTrue(r.entered.await(5, TimeUnit.SECONDS));
+		for (long ts = 1; ts <= 4; ts++) {
+			service.insert(ts, "cpu", ts, Map.of());
+		}
+		return sub;
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline, "timed out");
+			Thread.sleep(5);
+		}
+	}
+
+	private static final class Recorder implements SubscriptionListener {
+		final List<DataPoint> points = new CopyOnWriteArrayList<>();
+		final Map<Long, AggregateResult> latest = Collections.synchronizedMap(new TreeMap<>());
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch disconnected = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(0);
+
+		Recorder blockFirst() {
+			release = new CountDownLatch(1);
+			return this;
+		}
+
+		@Override
+		public void onPoint(DataPoint dp) {
+			points.add(dp);
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public void onAggregate(long windowStart, long windowEnd, AggregateResult aggregate) {
+			latest.put(windowStart, aggregate);
+		}
+
+		@Override
+		public void onDisconnected() {
+			disconnected.countDown();
+		}
+
+		List<Long> timestamps() {
+			return points.stream().map(DataPoint::getTimestamp).toList();
+		}
+	}
+
+}
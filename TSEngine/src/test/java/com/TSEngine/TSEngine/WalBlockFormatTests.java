@@ -0,0 +1,204 @@
+package com.TSEngine.TSEngine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalBlockFormatTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void compressedRoundTrip() throws IOException {
+		write(WalConfig.compressed(dir), 0, 5000);
+
+		List<WalRecord> replayed = replay();
+		assertEquals(5000, replayed.size());
+		for (int i = 0; i < replayed.size(); i++) {
+			WalRecord r = replayed.get(i);
+			assertEquals(i, r.timestamp);
+			assertEquals("cpu", r.metric);
+			assertEquals(i * 0.5, r.value);
+			assertEquals(Map.of("host", "h" + (i % 7)), r.tags);
+		}
+	}
+
+	@Test
+	void tornTailDropsOnlyTheLastBlock() throws IOException {
+		write(WalConfig.compressed(dir), 0, 5000);
+		truncate(lastSegment(), 10);
+
+		List<WalRecord> replayed = replay();
+		assertTrue(replayed.size() > 0 && replayed.size() < 5000);
+		for (int i = 0; i < replayed.size(); i++) {
+			assertEquals(i, replayed.get(i).timestamp);
+		}
+	}
+
+	@Test
+	void reopenAfterTornBlockKeepsNewRecords() throws IOException {
+		write(WalConfig.compressed(dir), 0, 5000);
+		truncate(lastSegment(), 10);
+		int survived = replay().size();
+
+		write(WalConfig.compressed(dir), 5000, 100);
+
+		List<WalRecord> replayed = replay();
+		assertEquals(survived + 100, replayed.size());
+		assertEquals(5099, replayed.get(replayed.size() - 1).timestamp);
+	}
+
+	@Test
+	void reopenAfterTornRecordKeepsNewRecords() throws IOException {
+		WalConfig config = new WalConfig(dir, 256L << 20, WalSyncMode.ALWAYS, 0, 0);
+		write(config, 0, 500);
+		truncate(lastSegment(), 10);
+		int survived = replay().size();
+
+		write(config, 500, 100);
+
+		List<WalRecord> replayed = replay();
+		assertEquals(survived + 100, replayed.size());
+		assertEquals(599, replayed.get(replayed.size() - 1).timestamp);
+	}
+
+	@Test
+	void corruptBlockHeaderIsRejectedBeforeAllocating() throws IOException {
+		write(WalConfig.compressed(dir), 0, 5000);
+		try (RandomAccessFile f = new RandomAccessFile(lastSegment().toFile(), "rw")) {
+			f.seek(WalBlockCodec.HEADER_BYTES);
+			f.writeInt(0x7ff00000);
+		}
+
+		assertEquals(0, replay().size());
+	}
+
+	@Test
+	void quietWriterIsVisibleToFollowerWithinFlushInterval() throws Exception {
+		WalWriter writer = new WalWriter(WalConfig.compressed(dir));
+		try (WalFollower follower = new WalFollower(dir, 50)) {
+			for (int i = 0; i < 10; i++) {
+				writer.append(record(i));
+			}
+			Thread.sleep(300);
+
+			assertEquals(10, follower.pollOnce());
+			assertEquals(0, follower.getLagBytes());
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Test
+	void validRecordLengthMatchesReplay() throws IOException {
+		write(new WalConfig(dir, 256L << 20, WalSyncMode.ALWAYS, 0, 0), 0, 200);
+		Path segment = lastSegment();
+		assertEquals(Files.size(segment), WalReader.validRecordLength(segment));
+
+		truncate(segment, 10);
+		long valid = WalReader.validRecordLength(segment);
+		assertTrue(valid < Files.size(segment));
+		assertEquals(new WalReader(dir).replayFrom(segment, 0, r -> {}), valid);
+
+		// a length field pointing past EOF is torn, not an allocation
+		try (RandomAccessFile f = new RandomAccessFile(segment.toFile(), "rw")) {
+			f.seek(0);
+			f.writeInt(Integer.MAX_VALUE);
+		}
+		assertEquals(0, WalReader.validRecordLength(segment));
+	}
+
+	@Test
+	void dumperSaysWhyABlockSegmentStops() throws IOException {
+		write(WalConfig.compressed(dir), 0, 5000);
+		Path segment = lastSegment();
+		byte[] original = Files.readAllBytes(segment);
+
+		assertTrue(dump(segment).contains("Total Records: 5000"));
+
+		truncate(segment, 10);
+		assertTrue(dump(segment).contains("short read"));
+
+		Files.write(segment, original);
+		try (RandomAccessFile f = new RandomAccessFile(segment.toFile(), "rw")) {
+			f.seek(WalBlockCodec.HEADER_BYTES);
+			f.writeInt(0x7ff00000);
+		}
+		String out = dump(segment);
+		assertTrue(out.contains("byte " + WalBlockCodec.HEADER_BYTES + ": implausible lengths"), out);
+
+		Files.write(segment, original);
+		try (RandomAccessFile f = new RandomAccessFile(segment.toFile(), "rw")) {
+			f.seek(WalBlockCodec.HEADER_BYTES + WalBlockCodec.FRAME_BYTES + 5);
+			f.write(original[WalBlockCodec.HEADER_BYTES + WalBlockCodec.FRAME_BYTES + 5] ^ 0xff);
+		}
+		assertTrue(dump(segment).contains("CRC mismatch"));
+
+		// checksum fine, deflate stream not
+		byte[] garbage = {1, 2, 3};
+		ByteBuffer forged = ByteBuffer.allocate(WalBlockCodec.HEADER_BYTES + WalBlockCodec.FRAME_BYTES + garbage.length);
+		forged.putInt(WalBlockCodec.MAGIC).putInt(10).putInt(garbage.length)
+				.putInt(WalBlockCodec.frameCrc(10, garbage.length, garbage)).put(garbage);
+		Files.write(segment, forged.array());
+		assertTrue(dump(segment).contains("inflate failed"));
+	}
+
+	private static String dump(Path segment) throws IOException {
+		PrintStream stdout = System.out;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+		try {
+			WalDumper.dumpFile(segment);
+		} finally {
+			System.setOut(stdout);
+		}
+		return captured.toString(StandardCharsets.UTF_8);
+	}
+
+	private void write(WalConfig config, int from, int count) throws IOException {
+		WalWriter writer = new WalWriter(config);
+		try {
+			for (int i = from; i < from + count; i++) {
+				writer.append(record(i));
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static WalRecord record(int i) {
+		return new WalRecord(i, "cpu", i * 0.5, Map.of("host", "h" + (i % 7)));
+	}
+
+	private List<WalRecord> replay() throws IOException {
+		List<WalRecord> out = new ArrayList<>();
+		new WalReader(dir).replay(out::add);
+		return out;
+	}
+
+	private Path lastSegment() throws IOException {
+		List<Path> segments = new WalReader(dir).segments();
+		return segments.get(segments.size() - 1);
+	}
+
+	private static void truncate(Path file, int bytes) throws IOException {
+		try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+			f.setLength(f.length() - bytes);
+		}
+	}
+
+}
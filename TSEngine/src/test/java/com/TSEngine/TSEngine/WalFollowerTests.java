@@ -0,0 +1,148 @@
+package com.TSEngine.TSEngine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalFollowerTests {
+
+	@TempDir
+	Path dir;
+
+	private WalConfig smallSegments() {
+		return new WalConfig(dir, 4096, WalSyncMode.ALWAYS, 0, 0);
+	}
+
+	@Test
+	void followsAcrossRotation() throws IOException {
+		try (WalFollower follower = new WalFollower(dir, 50)) {
+			WalWriter writer = new WalWriter(smallSegments());
+			write(writer, 0, 300);
+			assertTrue(new WalReader(dir).segments().size() > 3);
+
+			assertEquals(300, follower.pollOnce());
+			write(writer, 300, 300);
+			assertEquals(300, follower.pollOnce());
+			writer.close();
+
+			assertEquals(600, follower.getAppliedRecords());
+			assertEquals(599, follower.getLastAppliedTimestamp());
+			assertEquals(0, follower.getLagBytes());
+			assertEquals(0, follower.getLagMillis());
+			assertEquals(600, follower.getService().query("cpu", 0, 600, null).size());
+			assertEquals(lastSegment(), follower.getCurrentSegment());
+		}
+	}
+
+	@Test
+	void tornTailIsRetriedThenSkippedAfterRotation() throws Exception {
+		try (WalFollower follower = new WalFollower(dir, 50)) {
+			// lag must not count the time the follower sat idle before the data existed
+			Thread.sleep(200);
+
+			WalWriter writer = new WalWriter(new WalConfig(dir, 256L << 20, WalSyncMode.ALWAYS, 0, 0));
+			write(writer, 0, 10);
+			writer.close();
+			truncate(lastSegment(), 10);
+
+			assertEquals(9, follower.pollOnce());
+			assertTrue(follower.getLagBytes() > 0);
+			long seenAt = System.currentTimeMillis();
+			Thread.sleep(50);
+			long lagMillis = follower.getLagMillis();
+			assertTrue(lagMillis >= 50 && lagMillis < 200 + System.currentTimeMillis() - seenAt, "lag " + lagMillis);
+
+			// still torn: nothing new, nothing skipped
+			assertEquals(0, follower.pollOnce());
+
+			// the restarted writer moves to a new segment, so the torn remainder is skipped
+			writer = new WalWriter(new WalConfig(dir, 256L << 20, WalSyncMode.ALWAYS, 0, 0));
+			write(writer, 10, 5);
+			writer.close();
+
+			assertEquals(5, follower.pollOnce());
+			assertEquals(0, follower.getLagBytes());
+			assertEquals(0, follower.getLagMillis());
+			List<DataPoint> points = follower.getService().query("cpu", 0, 100, null);
+			assertEquals(14, points.size());
+			assertEquals(14, points.get(points.size() - 1).getTimestamp());
+		}
+	}
+
+	@Test
+	void gettersDoNotBlockWhileTheWriterIsBusy() throws Exception {
+		WalWriter writer = new WalWriter(WalConfig.compressed(dir));
+		AtomicBoolean writing = new AtomicBoolean(true);
+		AtomicLong written = new AtomicLong();
+		Thread producer = new Thread(() -> {
+			try {
+				for (int i = 0; writing.get(); i++) {
+					writer.append(record(i));
+					written.incrementAndGet();
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+
+		try (WalFollower follower = new WalFollower(dir, 10)) {
+			producer.start();
+			follower.start();
+			for (int i = 0; i < 20; i++) {
+				Thread.sleep(25);
+				assertTimeoutPreemptively(Duration.ofMillis(100), () -> {
+					follower.getAppliedRecords();
+					follower.getCurrentOffset();
+					follower.getLastAppliedTimestamp();
+					follower.getLagBytes();
+					follower.getLagMillis();
+				});
+			}
+
+			writing.set(false);
+			producer.join();
+			writer.close();
+
+			long deadline = System.currentTimeMillis() + 10_000;
+			while (follower.getAppliedRecords() < written.get() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(20);
+			}
+			assertEquals(written.get(), follower.getAppliedRecords());
+		} finally {
+			writing.set(false);
+			producer.join();
+		}
+	}
+
+	private static void write(WalWriter writer, int from, int count) throws IOException {
+		for (int i = from; i < from + count; i++) {
+			writer.append(record(i));
+		}
+	}
+
+	private static WalRecord record(int i) {
+		return new WalRecord(i, "cpu", i, Map.of("host", "h" + (i % 3)));
+	}
+
+	private Path lastSegment() throws IOException {
+		List<Path> segments = new WalReader(dir).segments();
+		return segments.get(segments.size() - 1);
+	}
+
+	private static void truncate(Path file, int bytes) throws IOException {
+		try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+			f.setLength(f.length() - bytes);
+		}
+	}
+
+}